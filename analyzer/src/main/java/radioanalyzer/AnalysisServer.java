@@ -0,0 +1,297 @@
+package radioanalyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Resident HTTP server that runs the extraction and statistics on a warm JVM, so that small batches of logs are analyzed
+ * without paying for JVM startup, loading POI and a cold JIT on every run.
+ * Usage: AnalysisServer [--port N] [--host ADDRESS] [--threads N] [--requests N] [--cache FILE | --no-cache]
+ *
+ * GET or POST /analyze?dir=PATH analyzes the logs in a directory the server can read.
+ * POST /analyze?name=FILE analyzes the logs in the request body: a .zip bundle, a .xml log or a .xml.gz log, as named by FILE.
+ * Quarantined logs are left out of the statistics and listed with their defects.
+ * Either returns the statistics as JSON, or the same workbook as Analyze with format=xlsx.
+ * @author abhi
+ */
+public class AnalysisServer {
+	private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+	private static final String[] BANDS = {"B2", "B4", "B5", "B12", "B13", "B17"};
+	private static final String[] SERIES = {"Tx Max PA 3", "Tx Max PA 0", "Tx Min PA 3", "Tx Min PA 0", "APT Tx Max PA 3",
+			"APT Tx Max PA 0", "APT Tx Min PA 3", "APT Tx Min PA 0"}; // Indexed by the RunAggregate series
+	private static final String[] LNA_SETS = {"B2", "B4", "B5", "B12", "B13", "B17", "B5 Diversity", "B12 Diversity", "B13 Diversity", "B17 Diversity"};
+	private static final String[] STATS = {"min", "max", "mean", "median", "stdDev"};
+	public static final int DEFAULT_REQUESTS = 4; // Requests handled at the same time, the others wait for a thread
+	
+	private final HttpServer server;
+	private final ExtractionEngine engine; // Logs in directories, through the cache
+	private final ExtractionEngine uploads; // Uploaded logs, which are never seen again so are not cached
+	private final ExecutorService requests; // Threads handling the requests
+	
+	public AnalysisServer(InetSocketAddress address, ExtractionEngine engine, ExtractionEngine uploads) throws IOException {
+		this(address, engine, uploads, DEFAULT_REQUESTS);
+	}
+	
+	/**
+	 * @param requests: Number of requests handled at the same time. More requests wait for a thread instead of each getting
+	 * its own, so that many concurrent uploads cannot create any number of threads.
+	 */
+	public AnalysisServer(InetSocketAddress address, ExtractionEngine engine, ExtractionEngine uploads, int requests) throws IOException {
+		this.engine = engine;
+		this.uploads = uploads;
+		this.requests = Executors.newFixedThreadPool(requests);
+		server = HttpServer.create(address, 0);
+		server.createContext("/analyze", this::handle);
+		server.setExecutor(this.requests); // Requests share the extraction threads of the engines
+	}
+	
+	public static void main(String[] args) throws IOException {
+		int port = 8080;
+		String host = "localhost"; // Only local clients by default, since any readable directory can be analyzed
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		int requests = DEFAULT_REQUESTS;
+		File cacheFile = ExtractionCache.defaultFile();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--port")) {
+				port = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--host")) {
+				host = args[++i];
+			} else if (args[i].equals("--threads")) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--requests")) {
+				requests = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--cache")) {
+				cacheFile = new File(args[++i]);
+			} else if (args[i].equals("--no-cache")) {
+				cacheFile = null;
+			}
+		}
+		
+		// Loads the POI classes up front so that the first request does not pay for them
+		new ReportWriter(OutputStream.nullOutputStream()).close();
+		
+		ExtractionCache cache = cacheFile == null ? null : new ExtractionCache(cacheFile);
+		PipelineMetrics metrics = new PipelineMetrics(); // Totals since the server started
+		metrics.register();
+		ExtractionEngine engine = new ExtractionEngine(parallelism, cache, metrics);
+		ExtractionEngine uploads = new ExtractionEngine(parallelism, null, metrics);
+		AnalysisServer server = new AnalysisServer(new InetSocketAddress(host, port), engine, uploads, requests);
+		
+		// The cache is written once, when the server is stopped, rather than after every request
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop();
+			try {
+				if (cache != null) {
+					cache.save();
+				}
+			} catch (IOException e) {
+				System.out.println("Could not save the extraction cache: " + e.getMessage());
+			}
+		}));
+		server.start();
+		System.out.println("Listening on http://" + host + ":" + port + "/analyze");
+	}
+	
+	public void start() {
+		server.start();
+	}
+	
+	/**
+	 * Stops accepting requests, waits up to a second for the ones in progress, and shuts the extraction threads down.
+	 */
+	public void stop() {
+		server.stop(1);
+		requests.shutdown();
+		engine.close();
+		uploads.close();
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		long startTime = System.nanoTime();
+		try {
+			String method = exchange.getRequestMethod();
+			if (!method.equals("GET") && !method.equals("POST")) {
+				respond(exchange, 405, "text/plain", "Use GET or POST\n".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			boolean xlsx = "xlsx".equals(query.get("format"));
+			
+			LogRecord[] records;
+			String source;
+			if (query.containsKey("dir")) {
+				File inputDirectory = new File(query.get("dir"));
+				File[] logs = inputDirectory.listFiles(file -> !Analyze.isOutput(inputDirectory, file));
+				if (logs == null) {
+					respond(exchange, 400, "text/plain", (inputDirectory + " is not a directory\n").getBytes(StandardCharsets.UTF_8));
+					return;
+				}
+				records = engine.extractAll(logs);
+				source = inputDirectory.getPath();
+			} else if (method.equals("POST")) {
+				String name = new File(query.getOrDefault("name", "logs.zip")).getName(); // Only the name, never a path
+				records = extractUpload(exchange.getRequestBody(), name);
+				source = "upload " + name;
+			} else {
+				respond(exchange, 400, "text/plain", "Give a directory with dir=PATH or POST the logs\n".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			if (records.length == 0) {
+				respond(exchange, 400, "text/plain", ("No logs in " + source + "\n").getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			
+			RunAggregate aggregate = new RunAggregate();
+			aggregate.addAll(records);
+			if (xlsx) {
+				ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+				try (ReportWriter writer = new ReportWriter(workbook)) {
+					writer.writeStats(aggregate);
+					writer.addQuarantined(quarantine(records));
+				}
+				exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"Organized Data.xlsx\"");
+				respond(exchange, 200, XLSX, workbook.toByteArray());
+			} else {
+				respond(exchange, 200, "application/json", toJson(aggregate, records).getBytes(StandardCharsets.UTF_8));
+			}
+			System.out.println("Analyzed " + aggregate.getLogs() + " logs from " + source + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+		} catch (IOException | RuntimeException e) {
+			// A log that cannot be condensed fails the request, like it fails a run of Analyze
+			respond(exchange, 500, "text/plain", ("Analysis failed: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Extracts the logs of an uploaded file, saved under name in a temporary directory for the length of the request.
+	 */
+	private LogRecord[] extractUpload(InputStream body, String name) throws IOException {
+		File directory = Files.createTempDirectory("radioanalyzer-upload").toFile();
+		File upload = new File(directory, name);
+		try {
+			Files.copy(body, upload.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return uploads.extractAll(new File[] {upload});
+		} finally {
+			upload.delete();
+			directory.delete();
+		}
+	}
+	
+	private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	private static Map<String, String> query(String rawQuery) {
+		Map<String, String> query = new HashMap<String, String>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String parameter : rawQuery.split("&")) {
+			String[] pair = parameter.split("=", 2);
+			query.put(URLDecoder.decode(pair[0], StandardCharsets.UTF_8), pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+		}
+		return query;
+	}
+	
+	/**
+	 * Returns the statistics of every Tx Linearizer series and the average LNA Offsets as [device][RxLvl], as in the workbook.
+	 */
+	static String toJson(RunAggregate aggregate, LogRecord[] records) {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"logs\": ").append(aggregate.getLogs()).append(",\n");
+		json.append("  \"quarantine\": [");
+		String separator = "";
+		for (LogRecord record : records) {
+			if (record.corrupt) {
+				json.append(separator).append("{\"log\": \"").append(escape(record.name)).append("\", \"reason\": \"").append(escape(record.defect)).append("\"}");
+				separator = ", ";
+			}
+		}
+		json.append("],\n");
+		
+		json.append("  \"txLinearizer\": {");
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			json.append(k == 0 ? "\n" : ",\n").append("    \"").append(BANDS[k]).append("\": {");
+			for (int s = 0; s < RunAggregate.SERIES; s++) {
+				double[] stats = aggregate.powerStats(k, s);
+				json.append(s == 0 ? "\n" : ",\n").append("      \"").append(SERIES[s]).append("\": {");
+				for (int i = 0; i < STATS.length; i++) {
+					json.append(i == 0 ? "" : ", ").append('"').append(STATS[i]).append("\": ").append(stats[i]);
+				}
+				json.append("}");
+			}
+			json.append("\n    }");
+		}
+		json.append("\n  },\n");
+		
+		json.append("  \"lnaOffset\": {");
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			json.append(set == 0 ? "\n" : ",\n").append("    \"").append(LNA_SETS[set]).append("\": [");
+			int[][] averages = aggregate.lnaAverages(set);
+			for (int d = 0; d < averages.length; d++) {
+				json.append(d == 0 ? "[" : ", [");
+				for (int i = 0; i < averages[d].length; i++) {
+					json.append(i == 0 ? "" : ", ").append(averages[d][i]);
+				}
+				json.append("]");
+			}
+			json.append("]");
+		}
+		json.append("\n  }\n}\n");
+		return json.toString();
+	}
+	
+	/**
+	 * Returns the defect of each quarantined log of records, in log order.
+	 */
+	private static Map<String, String> quarantine(LogRecord[] records) {
+		Map<String, String> quarantine = new LinkedHashMap<String, String>();
+		for (LogRecord record : records) {
+			if (record.corrupt) {
+				quarantine.put(record.name, record.defect);
+			}
+		}
+		return quarantine;
+	}
+	
+	/**
+	 * Escapes s for a JSON string: backslashes, quotes and control characters, which log names and defects such as
+	 * ZipException messages can contain.
+	 */
+	private static String escape(String s) {
+		StringBuilder escaped = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '\\' || c == '"') {
+				escaped.append('\\').append(c);
+			} else if (c < 0x20) {
+				escaped.append(String.format("\\u%04x", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+}
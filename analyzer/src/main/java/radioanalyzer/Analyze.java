@@ -0,0 +1,533 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class to extract and analyze the Linearizer and LNA Offset data from the Condensed Logs.
+ * @author abhi
+ */
+public class Analyze {
+	// Markers of the LNA Offset data, see LogCondenser.MARKERS
+	private static final int LNA_MARKER = LogCondenser.MARKERS.indexOf("LNA");
+	private static final int CHANNEL_MARKER = LogCondenser.MARKERS.indexOf("Channel");
+	private static final int OFFSET_MARKER = LogCondenser.MARKERS.indexOf("RxFCompLNAOffset");
+	
+	private static final int STREAM_BATCH = 1024; // Logs listed ahead of the extraction in the stream mode
+	
+	public static final int MALFORMED = -1; // Returned by the extractors for malformed data
+	
+	public static void main(String[] args) throws IOException {
+		long startTime = System.currentTimeMillis();
+		PipelineMetrics metrics = new PipelineMetrics();
+		metrics.register();
+		long stageStart = System.nanoTime();
+		
+		final File inputDirectory = new File(args[0]); // Directory with all the .xml Log files
+		
+		int parallelism = Runtime.getRuntime().availableProcessors(); // Maximum number of logs processed at the same time
+		File cacheFile = ExtractionCache.defaultFile(); // Values extracted by previous runs
+		boolean cacheGiven = false;
+		boolean details = false; // Adds a sheet with the values of every log
+		boolean stream = false; // Keeps nothing per log, see streamLogs
+		int shards = 0; // Worker processes the logs are split across, see ShardCoordinator
+		List<File> partials = new ArrayList<File>(); // Partial results of shards extracted elsewhere, merged instead of extracting
+		long trendBucket = TrendStats.DEFAULT_BUCKET; // See TrendStats
+		int trendWindow = TrendStats.DEFAULT_WINDOW;
+		List<String> bands = new ArrayList<String>(); // Sections the run is limited to, see SectionFilter
+		String metric = null;
+		int resamples = 0; // Bootstrap resamples of the confidence intervals, 0 for none, see BootstrapCI
+		long seed = BootstrapCI.DEFAULT_SEED;
+		double confidence = BootstrapCI.DEFAULT_CONFIDENCE;
+		File limitsFile = null; // Compliance limits each log is checked against, see ComplianceLimits
+		boolean gate = false; // Stops at the first log that fails a limit
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--threads")) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--cache")) {
+				cacheFile = new File(args[++i]);
+				cacheGiven = true;
+			} else if (args[i].equals("--no-cache")) {
+				cacheFile = null;
+			} else if (args[i].equals("--details")) {
+				details = true;
+			} else if (args[i].equals("--stream")) {
+				stream = true;
+			} else if (args[i].equals("--shards")) {
+				shards = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--merge")) {
+				while (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+					partials.add(new File(args[++i]));
+				}
+			} else if (args[i].equals("--trend-bucket")) {
+				trendBucket = Math.round(Double.parseDouble(args[++i]) * 60000);
+			} else if (args[i].equals("--trend-window")) {
+				trendWindow = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--band")) {
+				bands.add(args[++i]);
+			} else if (args[i].equals("--metric")) {
+				metric = args[++i];
+			} else if (args[i].equals("--bootstrap")) {
+				resamples = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--confidence")) {
+				confidence = Double.parseDouble(args[++i]);
+			} else if (args[i].equals("--limits")) {
+				limitsFile = new File(args[++i]);
+			} else if (args[i].equals("--gate")) {
+				gate = true;
+			}
+		}
+		SectionFilter filter = SectionFilter.of(bands, metric);
+		if (!filter.isAll() && (shards > 0 || !partials.isEmpty() || stream || details)) {
+			System.out.println("--band and --metric are not available with --shards, --merge, --stream or --details, which need every value of each log.");
+			shards = 0;
+			partials.clear();
+			stream = false;
+			details = false;
+		}
+		boolean sharded = shards > 0 || !partials.isEmpty();
+		if (resamples > 0 && (sharded || stream)) {
+			System.out.println("--bootstrap is not available with --shards, --merge or --stream, it resamples the values of every log.");
+			resamples = 0;
+		}
+		if (limitsFile != null && sharded) {
+			System.out.println("--limits is not available with --shards or --merge, each log is checked as it is extracted.");
+			limitsFile = null;
+		}
+		ComplianceLimits limits = limitsFile == null ? null : ComplianceLimits.read(limitsFile).select(filter);
+		if (gate && limits == null) {
+			System.out.println("--gate needs --limits.");
+			gate = false;
+		}
+		if (sharded) {
+			cacheFile = null; // See ShardWorker
+			stream = false;
+			if (details) {
+				System.out.println("--details is not available with --shards or --merge, the Logs sheet needs the values of every log.");
+				details = false;
+			}
+		}
+		if (stream) {
+			if (!cacheGiven) {
+				cacheFile = null; // The cache holds the values of every log in memory
+			}
+			if (details) {
+				System.out.println("--details is not available with --stream, the Logs sheet needs the values of every log.");
+				details = false;
+			}
+		}
+		
+		// The stream mode lists the directory as it goes instead, and merging extracts nothing
+		File[] logs = stream || !partials.isEmpty() ? new File[0] : inputDirectory.listFiles(file -> !isOutput(inputDirectory, file));
+		
+		/**
+		 * This Exception is thrown if the input directory is empty.
+		 * @author abhi
+		 */
+		class EmptyInputDirectoryException extends Exception {
+			private static final long serialVersionUID = -6120559721117666050L; // ???
+			public EmptyInputDirectoryException() {}
+		}
+		
+		// Empty Input Directory exception handling
+		try {
+			if (logs == null || !inputDirectory.isDirectory()) {
+				throw new EmptyInputDirectoryException();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		
+		ExtractionCache cache = cacheFile == null ? null : new ExtractionCache(cacheFile);
+		stageStart = metrics.stage(PipelineMetrics.LIST, stageStart);
+		
+		// Condense and extract every log in parallel, skipping the ones already in the cache.
+		// Logs with a missing section or malformed data are quarantined as they are extracted, without exceptions.
+		LogRecord[] records = new LogRecord[0];
+		RunAggregate aggregate = new RunAggregate(trendBucket, trendWindow);
+		Map<String, String> quarantine = Collections.synchronizedMap(new LinkedHashMap<String, String>()); // Defect of each quarantined log
+		Map<Thread, ComplianceTally> tallies = new ConcurrentHashMap<Thread, ComplianceTally>(); // Of each extraction thread, merged once every log is checked
+		Map<String, String> failures = Collections.synchronizedMap(new TreeMap<String, String>()); // First limit each failing log fails, by name
+		final boolean gating = gate;
+		Consumer<LogRecord> check = limits == null ? null : record -> check(record, limits, tallies, failures, gating);
+		String gateFailure = null; // Log that stopped a gating run
+		if (!partials.isEmpty()) {
+			ShardCoordinator.merge(partials, aggregate, quarantine, metrics);
+		} else if (sharded) {
+			new ShardCoordinator(shards, Math.max(1, parallelism / shards)).run(logs, aggregate, quarantine, metrics); // --threads is shared by the workers
+		} else {
+			try (ExtractionEngine engine = new ExtractionEngine(parallelism, cache, metrics)) {
+				if (stream) {
+					try (ResultsStore.Writer store = new ResultsStore.Writer(storeFile(inputDirectory))) {
+						streamLogs(inputDirectory, engine, aggregate, quarantine, store, check);
+					}
+				} else if (!filter.isAll()) {
+					records = engine.extractSelected(logs, filter, check); // Neither cached nor stored, they only hold the selected values
+				} else {
+					records = engine.extractAll(logs, check);
+				}
+			} catch (ComplianceLimits.GateFailure e) {
+				gateFailure = e.getMessage();
+			}
+		}
+		if (cache != null) {
+			cache.save();
+		}
+		if (gateFailure != null) {
+			System.out.println();
+			System.out.println("Gate failed: " + gateFailure);
+			System.out.println("Stopped after " + (System.currentTimeMillis() - startTime) / 1000 + " seconds, no workbook written.");
+			System.exit(1);
+		}
+		ComplianceTally tally = null;
+		if (limits != null) {
+			tally = new ComplianceTally(limits);
+			for (ComplianceTally threadTally : tallies.values()) {
+				tally.merge(threadTally);
+			}
+		}
+
+		stageStart = System.nanoTime();
+		for (LogRecord record : records) {
+			if (record.corrupt) {
+				quarantine(quarantine, record.name, record.defect); // Reported in log order once every log has been extracted
+			}
+		}
+		aggregate.addAll(records); // Leaves the quarantined logs out
+		BootstrapCI intervals = null;
+		if (resamples > 0) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				intervals = new BootstrapCI(records, resamples, seed, confidence, pool);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		stageStart = metrics.stage(PipelineMetrics.STATS, stageStart);
+		
+		// Per-log values for ResultsQuery, written as they are extracted in the stream mode
+		if (!stream && !sharded && filter.isAll()) {
+			try (ResultsStore.Writer store = new ResultsStore.Writer(storeFile(inputDirectory))) {
+				for (LogRecord record : records) {
+					store.add(record);
+				}
+			}
+		}
+		
+		// Creates output Excel file in same directory containing the log files
+		try (ReportWriter writer = new ReportWriter(reportFile(inputDirectory))) {
+			writer.writeStats(aggregate, filter, intervals);
+			writer.addQuarantined(quarantine);
+			if (tally != null) {
+				writer.writeCompliance(tally, failures);
+			}
+			if (details) {
+				for (LogRecord record : records) {
+					writer.addLog(record);
+				}
+			}
+		}
+		metrics.stage(PipelineMetrics.WRITE, stageStart);
+		metrics.writeSummary(summaryFile(inputDirectory)); // Per-stage times and throughput for tracking performance across runs
+		
+		long endTime = System.currentTimeMillis();
+		long totalTime = endTime - startTime;
+		System.out.println();
+		System.out.println("Success! Completed in " + totalTime/1000 + " seconds.");
+		System.out.println(aggregate.getLogs() + " logs processed, " + aggregate.getCorruptLogs() + " quarantined."); // Counts every log in a .zip archive
+		if (tally != null) {
+			System.out.println(tally.getPassed() + " of " + tally.getLogs() + " logs passed every limit.");
+		}
+	}
+	
+	/**
+	 * Adds a log to quarantine and reports it.
+	 * @param defect: Why the log is left out of the statistics, see LogRecord.defect
+	 */
+	public static void quarantine(Map<String, String> quarantine, String name, String defect) {
+		quarantine.put(name, defect);
+		System.out.println("Quarantined " + name + ": " + defect);
+	}
+	
+	/**
+	 * Checks a log against the limits in the tally of the current thread, and reports it if it fails one.
+	 * @param failures: Receives the first limit each failing log fails, synchronized
+	 * @param gate: Stop the run at this log if it fails a limit
+	 * @throws ComplianceLimits.GateFailure if gate and the log fails a limit
+	 */
+	private static void check(LogRecord record, ComplianceLimits limits, Map<Thread, ComplianceTally> tallies, Map<String, String> failures,
+			boolean gate) {
+		int limit = tallies.computeIfAbsent(Thread.currentThread(), thread -> new ComplianceTally(limits)).add(record);
+		if (limit < 0) {
+			return;
+		}
+		String violation = limits.violation(record, limit);
+		failures.put(record.name, violation);
+		System.out.println("Failed " + record.name + ": " + violation);
+		if (gate) {
+			throw new ComplianceLimits.GateFailure(record.name + ": " + violation);
+		}
+	}
+	
+	/**
+	 * Extracts the logs in inputDirectory in batches as the directory is listed, adding each log to aggregate as soon as it
+	 * is extracted. Every extraction thread adds to its own RunAggregate, and those are merged at the end, so nothing is kept
+	 * per log and memory does not grow with the number of logs.
+	 * Quarantined logs are reported, and logs added to store, in the order they finish in. The statistics can differ from
+	 * the default mode in the last rounded digit, since the values are summed in a different order.
+	 * @param quarantine: Receives the quarantined logs, synchronized
+	 * @param check: Receives each log as it is extracted, or null
+	 */
+	private static void streamLogs(File inputDirectory, ExtractionEngine engine, RunAggregate aggregate, Map<String, String> quarantine,
+			ResultsStore.Writer store, Consumer<LogRecord> check) throws IOException {
+		Map<Thread, RunAggregate> partials = new ConcurrentHashMap<Thread, RunAggregate>();
+		TrendStats trend = aggregate.getTrend();
+		Consumer<LogRecord> sink = record -> {
+			if (record.corrupt) {
+				quarantine(quarantine, record.name, record.defect);
+			}
+			partials.computeIfAbsent(Thread.currentThread(), thread -> new RunAggregate(trend.getBucket(), trend.getWindow())).add(record);
+			try {
+				store.add(record);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Fails the extraction like a log that cannot be read
+			}
+			if (check != null) {
+				check.accept(record);
+			}
+		};
+		
+		List<File> batch = new ArrayList<File>(STREAM_BATCH);
+		try (DirectoryStream<Path> directory = Files.newDirectoryStream(inputDirectory.toPath())) {
+			for (Path path : directory) {
+				File file = path.toFile();
+				if (isOutput(inputDirectory, file)) {
+					continue;
+				}
+				batch.add(file);
+				if (batch.size() == STREAM_BATCH) {
+					engine.extractEach(batch.toArray(new File[0]), sink);
+					batch.clear();
+				}
+			}
+		}
+		engine.extractEach(batch.toArray(new File[0]), sink);
+		
+		for (RunAggregate partial : partials.values()) {
+			aggregate.merge(partial);
+		}
+	}
+	
+	/**
+	 * Returns the output Excel file for the logs in inputDirectory.
+	 */
+	public static File reportFile(File inputDirectory) {
+		return new File(inputDirectory.getPath() + "\\Organized Data.xlsx");
+	}
+	
+	/**
+	 * Returns the JSON run summary for the logs in inputDirectory, next to the output Excel file.
+	 */
+	public static File summaryFile(File inputDirectory) {
+		return new File(inputDirectory.getPath() + "\\Run Summary.json");
+	}
+	
+	/**
+	 * Returns the ResultsStore of the values of every log in inputDirectory, next to the output Excel file.
+	 */
+	public static File storeFile(File inputDirectory) {
+		return new File(inputDirectory.getPath() + "\\Results.store");
+	}
+	
+	/**
+	 * Returns true if file is one of the files written for the logs in inputDirectory, or the sidecar of a log, rather than a log.
+	 */
+	public static boolean isOutput(File inputDirectory, File file) {
+		File absolute = file.getAbsoluteFile();
+		return absolute.equals(reportFile(inputDirectory).getAbsoluteFile()) || absolute.equals(summaryFile(inputDirectory).getAbsoluteFile())
+				|| absolute.equals(storeFile(inputDirectory).getAbsoluteFile()) || SectionIndex.isSidecar(file);
+	}
+	
+	/**
+	 * Extracts the (APT) Tx Linearizer data, finding the keys in markers instead of scanning str.
+	 * Malformed data is reported as a null return instead of an exception.
+	 * 
+	 * @param str: ESC LTE band data from a single log
+	 * @param markers: Markers of the log str is a section of
+	 * @param key: Marker of Max or Min Power in LogCondenser.MARKERS
+	 * @return the Tx and APT Tx Linearizer data for PA State 3 and PA State 0, or null if a value is malformed or there are more than 4.
+	 */
+	public static double[] extractPower(LogSection str, MarkerIndex markers, int key) {
+		double[] values = new double[4]; // {Tx PA State 3, Tx PA State 0, APT Tx PA State 3, APT Tx PA State 0}
+		int addPos = 0;
+		int index = markers.indexOf(key, str);
+		while (index >= 0) {
+			if (addPos == values.length) {
+				return null;
+			}
+			values[addPos] = ValueReader.readDouble(str, index, str.length()); // Parses the value in place
+			if (Double.isNaN(values[addPos])) {
+				return null;
+			}
+			addPos++;
+			index = markers.indexOf(key, str, index + 1); // Proceeds to next value
+		}
+		return values;
+	}
+	
+	/**
+	 * Returns the output of statistical analysis on the values of nums.
+	 */
+	public static double[] getStats(double[] nums) {
+		double[] result = new double[5];
+		result[0] = findMin(nums);
+		result[1] = findMax(nums);
+		result[2] = findMean(nums);
+		result[3] = findMedian(nums);
+		result[4] = findStdDev(nums);
+		return result;
+	}
+	
+	/**
+	 * Calculates the min value of nums.
+	 */
+	public static double findMin(double[] nums) {
+		double min = nums[0];
+		for (int i = 1; i < nums.length; i++) {
+			if (nums[i] < min) {
+				min = nums[i];
+			}
+		}
+		return min;
+	}
+	
+	/**
+	 * Calculates the max value of nums.
+	 */
+	public static double findMax(double[] nums) {
+		double max = nums[0];
+		for (int i = 1; i < nums.length; i++) {
+			if (nums[i] > max) {
+				max = nums[i];
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * Calculates the mean value of nums (double).
+	 */
+	public static double findMean(double[] nums) {
+		double sum = 0;
+		for (double value : nums) {
+			sum += value;
+		}
+		return round(sum / nums.length, 2);
+	}
+	
+	/**
+	 * Calculates the mean value of nums (int).
+	 */
+	public static double findMean(int[] nums) {
+		double sum = 0;
+		for (int value : nums) {
+			sum += value;
+		}
+		return sum / nums.length;
+	}
+	
+	/**
+	 * Calculates the median value of nums. nums itself is left unsorted.
+	 */
+	public static double findMedian(double[] nums) {
+		nums = nums.clone();
+		Arrays.sort(nums);
+		double median;
+		if (nums.length % 2 == 0) {
+			int over = nums.length / 2;
+			int under = nums.length / 2 - 1;
+			median = (nums[under] + nums[over]) / 2;
+		} else {
+			median = nums[nums.length / 2];
+		}
+		return median;
+	}
+	
+	/**
+	 * Calculates the standard deviation of the values in nums.
+	 */
+	public static double findStdDev(double[] nums) {
+		double mean = findMean(nums);
+		double sum = 0;
+		for (double value : nums) {
+			sum += Math.pow(Math.abs(value - mean), 2);
+		}
+		return round(Math.sqrt(sum / nums.length), 2);
+	}
+	
+	/**
+	 * Rounds a double to "toDec" places after the decimal point.
+	 */
+	public static double round(double num, int toDec) {
+		double factor = Math.pow(10.0, toDec);
+		num = Math.round(num * factor) / factor;
+		return num;
+	}
+	
+	/**
+	 * Extracts the RxFCompLNAOffset values of a channel across all RxLevels, finding the markers in markers instead of scanning
+	 * str, and storing the values straight into an int[] instead of boxing them.
+	 * 
+	 * @param str: ESC LTE band data from a single log
+	 * @param markers: Markers of the log str is a section of
+	 * @param channel: Marker of the channel in LogCondenser.MARKERS
+	 * Malformed data is reported as a MALFORMED return instead of an exception.
+	 * @param values: Receives the first length values from offset on
+	 * @return the number of values for the specified channel, which is more than were stored if there are more than length,
+	 * or MALFORMED if the LNA section or a value is missing or malformed.
+	 */
+	public static int getRxFCompLNAOffset(LogSection str, MarkerIndex markers, int channel, int[] values, int offset, int length) {
+		int count = 0;
+		
+		int lna = markers.indexOf(LNA_MARKER, str);
+		if (lna < 0) {
+			return MALFORMED;
+		}
+		str = str.subSequence(lna, str.length()); // Find the LNA data section
+		int index = markers.indexOf(channel, str);
+		
+		while (index >= 0) {
+			int next = markers.indexOf(CHANNEL_MARKER, str, index);
+			if (next < 0) {
+				return MALFORMED;
+			}
+			int pos = markers.indexOf(OFFSET_MARKER, str, index, next); // Find the section with the RxFCompLNAOffset values
+			long value = pos < 0 ? ValueReader.NOT_AN_INT : ValueReader.readInt(str, pos, next); // Parses the value in place
+			if (value == ValueReader.NOT_AN_INT) {
+				return MALFORMED;
+			}
+			if (count < length) {
+				values[offset + count] = (int) value;
+			}
+			count++;
+			index = markers.indexOf(channel, str, index + 1); // Move to next RxLevel
+		}
+		return count;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package radioanalyzer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Percentile bootstrap confidence intervals of the statistics in the report: the Mean, Median and Std. Dev. of every
+ * Tx Linearizer series and the average of every RxFCompLNAOffset, over the logs that are not quarantined.
+ * Each resample draws the logs with replacement once, as a count per log, and every statistic is computed from those counts,
+ * so the series of a resample stay paired. Each series is sorted once up front, so the median of a resample is found in the
+ * same single pass over the counts as the mean and Std. Dev., without sorting the resample.
+ * Resamples are split across a fork-join pool, each task with its own SplittableRandom split from its parent's. The tasks
+ * and their generators depend only on the number of resamples, so the intervals are the same for a seed on any number
+ * of threads.
+ * @author abhi
+ */
+public class BootstrapCI {
+	public static final int DEFAULT_RESAMPLES = 1000;
+	public static final long DEFAULT_SEED = 1;
+	public static final double DEFAULT_CONFIDENCE = 0.95;
+	
+	// Statistics of each Tx Linearizer series with an interval
+	public static final int MEAN = 0;
+	public static final int MEDIAN = 1;
+	public static final int STD_DEV = 2;
+	private static final int POWER_STATS = 3;
+	
+	private static final int POWER_SERIES = ExtractionEngine.POWER_BANDS * RunAggregate.SERIES; // [band][series]
+	private static final int LNA_CELLS = ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES; // Laid out like LogRecord.lna
+	private static final int COLUMNS = POWER_SERIES * POWER_STATS + LNA_CELLS; // Statistics of a resample
+	private static final int TASK_RESAMPLES = 8; // Resamples each task runs itself instead of splitting
+	
+	private final int logs;
+	private final int resamples;
+	private final double confidence;
+	private final double[] sorted; // Values of each power series in ascending order, [series * logs + rank]
+	private final int[] order; // Log of each value of sorted
+	private final int[] lna; // [cell * logs + log]
+	private final double[] results; // Statistics of every resample, [column * resamples + resample]
+	private final double[] low = new double[COLUMNS]; // Bounds of the interval of each column, rounded like getStats
+	private final double[] high = new double[COLUMNS];
+	
+	/**
+	 * Resamples the logs of records that are not quarantined on pool.
+	 * @param resamples: Number of bootstrap resamples
+	 * @param seed: Seed of the resampling, the same seed giving the same intervals
+	 * @param confidence: Confidence level of the intervals, such as 0.95
+	 */
+	public BootstrapCI(LogRecord[] records, int resamples, long seed, double confidence, ForkJoinPool pool) {
+		if (resamples <= 0 || confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("Bootstrap needs resamples > 0 and a confidence between 0 and 1: " + resamples + ", " + confidence);
+		}
+		this.resamples = resamples;
+		this.confidence = confidence;
+		int good = 0;
+		for (LogRecord record : records) {
+			if (!record.corrupt) {
+				good++;
+			}
+		}
+		logs = good;
+		sorted = new double[POWER_SERIES * logs];
+		order = new int[POWER_SERIES * logs];
+		lna = new int[LNA_CELLS * logs];
+		results = new double[COLUMNS * resamples];
+		if (logs == 0) {
+			return; // Every interval is 0, like the statistics
+		}
+		
+		double[] values = new double[POWER_SERIES * logs];
+		int log = 0;
+		for (LogRecord record : records) {
+			if (record.corrupt) {
+				continue;
+			}
+			for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+				for (int s = 0; s < RunAggregate.SERIES; s++) {
+					values[(k * RunAggregate.SERIES + s) * logs + log] = record.power(k, s);
+				}
+			}
+			for (int cell = 0; cell < LNA_CELLS; cell++) {
+				lna[cell * logs + log] = record.lna[cell];
+			}
+			log++;
+		}
+		for (int s = 0; s < POWER_SERIES; s++) {
+			sort(values, s * logs);
+		}
+		
+		pool.invoke(new ResampleTask(0, resamples, new SplittableRandom(seed)));
+		
+		int lowRank = (int) Math.round((1 - confidence) / 2 * (resamples - 1));
+		for (int c = 0; c < COLUMNS; c++) {
+			Arrays.sort(results, c * resamples, (c + 1) * resamples);
+			low[c] = Analyze.round(results[c * resamples + lowRank], 2);
+			high[c] = Analyze.round(results[(c + 1) * resamples - 1 - lowRank], 2);
+		}
+	}
+	
+	/**
+	 * Sorts the values of a series into sorted, and the log of each into order.
+	 */
+	private void sort(double[] values, int from) {
+		System.arraycopy(values, from, sorted, from, logs);
+		Arrays.sort(sorted, from, from + logs);
+		int[] ties = new int[logs]; // Logs already placed at each rank, for equal values
+		for (int log = 0; log < logs; log++) {
+			int rank = lowerBound(from, values[from + log]) - from;
+			order[from + rank + ties[rank]++] = log;
+		}
+	}
+	
+	/**
+	 * Returns the index of the first value of the series at from in sorted that is not less than value.
+	 */
+	private int lowerBound(int from, double value) {
+		int lo = from;
+		int hi = from + logs;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (Double.compare(sorted[mid], value) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+	
+	/**
+	 * Computes every statistic of a resample in which log i is drawn counts[i] times.
+	 */
+	private void resample(int r, int[] counts) {
+		int lowerMiddle = (logs - 1) / 2; // Ranks of the median in the resample, the same when logs is odd
+		int upperMiddle = logs / 2;
+		for (int s = 0; s < POWER_SERIES; s++) {
+			int from = s * logs;
+			double sum = 0;
+			double sumSq = 0;
+			double lower = 0;
+			double upper = 0;
+			int drawn = 0;
+			for (int rank = 0; rank < logs; rank++) {
+				int count = counts[order[from + rank]];
+				if (count == 0) {
+					continue;
+				}
+				double value = sorted[from + rank];
+				sum += count * value;
+				sumSq += count * value * value;
+				if (drawn <= lowerMiddle && drawn + count > lowerMiddle) {
+					lower = value;
+				}
+				if (drawn <= upperMiddle && drawn + count > upperMiddle) {
+					upper = value;
+				}
+				drawn += count;
+			}
+			double mean = sum / logs;
+			int column = s * POWER_STATS;
+			results[(column + MEAN) * resamples + r] = mean;
+			results[(column + MEDIAN) * resamples + r] = (lower + upper) / 2;
+			results[(column + STD_DEV) * resamples + r] = Math.sqrt(Math.max(0, sumSq / logs - mean * mean));
+		}
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			int devices = set < 2 ? RunAggregate.DEVICES : 1; // The other devices of a set are always 0
+			for (int cell = LogRecord.lnaIndex(set, 0, 0); cell < LogRecord.lnaIndex(set, devices, 0); cell++) {
+				int from = cell * logs;
+				long sum = 0;
+				for (int log = 0; log < logs; log++) {
+					sum += (long) counts[log] * lna[from + log];
+				}
+				results[(POWER_SERIES * POWER_STATS + cell) * resamples + r] = (double) sum / logs;
+			}
+		}
+	}
+	
+	public double getConfidence() {
+		return confidence;
+	}
+	
+	/**
+	 * Returns {low, high} of the interval of a statistic of a Tx Linearizer series of a band.
+	 * @param stat: MEAN, MEDIAN or STD_DEV
+	 */
+	public double[] powerInterval(int band, int series, int stat) {
+		int column = (band * RunAggregate.SERIES + series) * POWER_STATS + stat;
+		return new double[] {low[column], high[column]};
+	}
+	
+	/**
+	 * Returns {low, high} of the interval of the average RxFCompLNAOffset of an LNA set, device and RxLvl.
+	 */
+	public double[] lnaInterval(int set, int device, int rxLvl) {
+		int column = POWER_SERIES * POWER_STATS + LogRecord.lnaIndex(set, device, rxLvl);
+		return new double[] {low[column], high[column]};
+	}
+	
+	/**
+	 * Splits [from, to) of the resamples in half until each task has at most TASK_RESAMPLES, the first half with a generator
+	 * split from this task's.
+	 */
+	private class ResampleTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final SplittableRandom random;
+		
+		ResampleTask(int from, int to, SplittableRandom random) {
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > TASK_RESAMPLES) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ResampleTask(from, mid, random.split()), new ResampleTask(mid, to, random));
+				return;
+			}
+			int[] counts = new int[logs];
+			for (int r = from; r < to; r++) {
+				Arrays.fill(counts, 0);
+				for (int i = 0; i < logs; i++) {
+					counts[random.nextInt(logs)]++;
+				}
+				resample(r, counts);
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compliance limits of the values extracted from each log, read from a limits file with one limit per line:
+ * COLUMN LOW HIGH [BINS]
+ * COLUMN is a Tx Linearizer series of a band or an RxFCompLNAOffset of a device and RxLvl, named like the ResultsStore columns
+ * such as "B13.txMax3" or "B2.lna.d1.r5", and may use * to match several, such as "*.aptMin0" or "B17div.lna.*".
+ * A value passes if LOW <= value <= HIGH. BINS is the number of histogram bins between LOW and HIGH, DEFAULT_BINS if left out.
+ * A later line replaces the limit of a column matched by an earlier one, so a default for every band can be narrowed for one.
+ * Blank lines and lines starting with # are skipped.
+ * The limits are compiled into primitive arrays in column order, so checking a log is a single loop, see ComplianceTally.
+ * @author abhi
+ */
+public class ComplianceLimits {
+	public static final int DEFAULT_BINS = 20;
+	
+	private final int[] columns; // ResultsStore column of each limit
+	private final int[] sections; // Section of each limit, indexed like LogCondenser.condense
+	private final double[] low;
+	private final double[] high;
+	private final int[] bins;
+	private final double[] scale; // Bins per unit of the value
+	private final int[] offsets; // Start of the histogram of each limit in ComplianceTally, see offset
+	private final int cells; // Histogram cells of every limit together
+	
+	private ComplianceLimits(int[] columns, double[] low, double[] high, int[] bins) {
+		this.columns = columns;
+		this.low = low;
+		this.high = high;
+		this.bins = bins;
+		sections = new int[columns.length];
+		scale = new double[columns.length];
+		offsets = new int[columns.length];
+		int cells = 0;
+		for (int i = 0; i < columns.length; i++) {
+			sections[i] = ResultsStore.section(columns[i]);
+			scale[i] = bins[i] / (high[i] - low[i]);
+			offsets[i] = cells;
+			cells += bins[i] + 2; // Below LOW, the bins, above HIGH
+		}
+		this.cells = cells;
+	}
+	
+	/**
+	 * Reads and compiles the limits in file.
+	 * @throws IOException if file cannot be read
+	 * @throws IllegalArgumentException if a line cannot be parsed or matches no column
+	 */
+	public static ComplianceLimits read(File file) throws IOException {
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1);
+		Map<Integer, double[]> limits = new TreeMap<Integer, double[]>(); // {low, high, bins} of each column
+		for (int n = 0; n < lines.size(); n++) {
+			String line = lines.get(n).trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			String where = file.getName() + " line " + (n + 1) + ": ";
+			if (fields.length < 3 || fields.length > 4) {
+				throw new IllegalArgumentException(where + "expected COLUMN LOW HIGH [BINS], got " + line);
+			}
+			double low;
+			double high;
+			int bins;
+			try {
+				low = Double.parseDouble(fields[1]);
+				high = Double.parseDouble(fields[2]);
+				bins = fields.length == 4 ? Integer.parseInt(fields[3]) : DEFAULT_BINS;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(where + "expected COLUMN LOW HIGH [BINS], got " + line);
+			}
+			if (!(low < high) || Double.isInfinite(high - low) || bins < 1) {
+				throw new IllegalArgumentException(where + "LOW must be below HIGH, both finite, and BINS at least 1");
+			}
+			
+			Pattern pattern = Pattern.compile(("\\Q" + fields[0] + "\\E").replace("*", "\\E.*\\Q"));
+			boolean matched = false;
+			for (int c = 0; c < ResultsStore.CORRUPT; c++) {
+				if (pattern.matcher(ResultsStore.columnName(c)).matches()) {
+					limits.put(c, new double[] {low, high, bins});
+					matched = true;
+				}
+			}
+			if (!matched) {
+				throw new IllegalArgumentException(where + "no column " + fields[0] + ", see ResultsQuery --columns");
+			}
+		}
+		return of(limits);
+	}
+	
+	private static ComplianceLimits of(Map<Integer, double[]> limits) {
+		int[] columns = new int[limits.size()];
+		double[] low = new double[columns.length];
+		double[] high = new double[columns.length];
+		int[] bins = new int[columns.length];
+		int i = 0;
+		for (Map.Entry<Integer, double[]> e : limits.entrySet()) {
+			columns[i] = e.getKey();
+			low[i] = e.getValue()[0];
+			high[i] = e.getValue()[1];
+			bins[i] = (int) e.getValue()[2];
+			i++;
+		}
+		return new ComplianceLimits(columns, low, high, bins);
+	}
+	
+	/**
+	 * Returns the limits of the data filter selects, since the other values of a filtered run are left as 0.
+	 */
+	public ComplianceLimits select(SectionFilter filter) {
+		if (filter.isAll()) {
+			return this;
+		}
+		Map<Integer, double[]> selected = new TreeMap<Integer, double[]>();
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] < ResultsStore.POWER_COLUMNS ? filter.tx(sections[i]) : filter.lna(sections[i])) {
+				selected.put(columns[i], new double[] {low[i], high[i], bins[i]});
+			}
+		}
+		return of(selected);
+	}
+	
+	/**
+	 * Returns the number of limits.
+	 */
+	public int size() {
+		return columns.length;
+	}
+	
+	/**
+	 * Returns the value of a log a limit applies to.
+	 */
+	public double value(LogRecord record, int limit) {
+		return ResultsStore.value(record, columns[limit]);
+	}
+	
+	/**
+	 * Returns the histogram cell of a value of a limit: 0 below LOW, 1 to bins(limit) between LOW and HIGH, bins(limit) + 1
+	 * above HIGH or NaN. The value passes unless it is in the first or last cell.
+	 */
+	public int cell(int limit, double value) {
+		if (value < low[limit]) {
+			return 0;
+		}
+		if (!(value <= high[limit])) {
+			return bins[limit] + 1;
+		}
+		return 1 + Math.min((int) ((value - low[limit]) * scale[limit]), bins[limit] - 1); // HIGH itself goes in the last bin
+	}
+	
+	/**
+	 * Returns the start of the histogram of a limit in an array of cells() counts.
+	 */
+	public int offset(int limit) {
+		return offsets[limit];
+	}
+	
+	public int cells() {
+		return cells;
+	}
+	
+	/**
+	 * Returns the name of the column of a limit, such as "B13.txMax3".
+	 */
+	public String name(int limit) {
+		return ResultsStore.columnName(columns[limit]);
+	}
+	
+	/**
+	 * Returns the ESC LTE section of a limit, indexed like LogCondenser.condense.
+	 */
+	public int section(int limit) {
+		return sections[limit];
+	}
+	
+	public double low(int limit) {
+		return low[limit];
+	}
+	
+	public double high(int limit) {
+		return high[limit];
+	}
+	
+	public int bins(int limit) {
+		return bins[limit];
+	}
+	
+	/**
+	 * Returns the width of the histogram bins of a limit.
+	 */
+	public double binWidth(int limit) {
+		return (high[limit] - low[limit]) / bins[limit];
+	}
+	
+	/**
+	 * Describes how a log fails a limit, such as "B13.txMax3 24.61 above 24.5".
+	 */
+	public String violation(LogRecord record, int limit) {
+		double value = value(record, limit);
+		return name(limit) + " " + value + (value < low[limit] ? " below " + low[limit] : " above " + high[limit]);
+	}
+	
+	/**
+	 * Thrown from the extraction to stop a gating run (--gate) at the first log that fails a limit.
+	 */
+	public static class GateFailure extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		
+		public GateFailure(String message) {
+			super(message);
+		}
+	}
+}
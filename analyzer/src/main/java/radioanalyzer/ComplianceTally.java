@@ -0,0 +1,115 @@
+package radioanalyzer;
+
+/**
+ * Pass counts and fixed-width histograms of the values of the logs checked against ComplianceLimits, from which the
+ * Compliance sheet is written. Each value is binned as its log is checked, so nothing is kept per log.
+ * A tally is filled by a single thread. The tallies of the extraction threads are merged into the one of the run, like
+ * RunAggregate.
+ * @author abhi
+ */
+public class ComplianceTally {
+	private final ComplianceLimits limits;
+	private final long[] counts; // Histogram of each limit, see ComplianceLimits.offset
+	private final long[] sectionPassed = new long[ExtractionEngine.LNA_SETS]; // Logs passing every limit of each section
+	private final boolean[] sectionLimited = new boolean[ExtractionEngine.LNA_SETS]; // Sections with any limit
+	private long logs = 0; // Logs checked, leaving out the quarantined ones
+	private long passed = 0; // Logs passing every limit
+	
+	public ComplianceTally(ComplianceLimits limits) {
+		this.limits = limits;
+		counts = new long[limits.cells()];
+		for (int i = 0; i < limits.size(); i++) {
+			sectionLimited[limits.section(i)] = true;
+		}
+	}
+	
+	/**
+	 * Checks a log against every limit, binning each of its values.
+	 * Quarantined logs are left out, like they are of the statistics.
+	 * @return the first limit the log fails, or -1 if it passes every limit or is quarantined
+	 */
+	public int add(LogRecord record) {
+		if (record.corrupt) {
+			return -1;
+		}
+		logs++;
+		int failed = -1;
+		int failedSections = 0; // Bit of each section with a failed limit
+		for (int i = 0; i < limits.size(); i++) {
+			int cell = limits.cell(i, limits.value(record, i));
+			counts[limits.offset(i) + cell]++;
+			if (cell == 0 || cell == limits.bins(i) + 1) {
+				failedSections |= 1 << limits.section(i);
+				if (failed < 0) {
+					failed = i;
+				}
+			}
+		}
+		if (failed < 0) {
+			passed++;
+		}
+		for (int s = 0; s < sectionPassed.length; s++) {
+			if ((failedSections & 1 << s) == 0) {
+				sectionPassed[s]++;
+			}
+		}
+		return failed;
+	}
+	
+	/**
+	 * Adds everything added to other, such as the logs of another thread. other is not changed.
+	 */
+	public void merge(ComplianceTally other) {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		for (int s = 0; s < sectionPassed.length; s++) {
+			sectionPassed[s] += other.sectionPassed[s];
+		}
+		logs += other.logs;
+		passed += other.passed;
+	}
+	
+	public ComplianceLimits getLimits() {
+		return limits;
+	}
+	
+	public long getLogs() {
+		return logs;
+	}
+	
+	/**
+	 * Returns the number of logs passing every limit.
+	 */
+	public long getPassed() {
+		return passed;
+	}
+	
+	/**
+	 * Returns true if a section, indexed like LogCondenser.condense, has any limit.
+	 */
+	public boolean isLimited(int section) {
+		return sectionLimited[section];
+	}
+	
+	/**
+	 * Returns the number of logs passing every limit of a section.
+	 */
+	public long sectionPassed(int section) {
+		return sectionPassed[section];
+	}
+	
+	/**
+	 * Returns the number of logs passing a limit.
+	 */
+	public long limitPassed(int limit) {
+		return logs - count(limit, 0) - count(limit, limits.bins(limit) + 1);
+	}
+	
+	/**
+	 * Returns the number of values of a limit in a histogram cell, see ComplianceLimits.cell.
+	 */
+	public long count(int limit, int cell) {
+		return counts[limits.offset(limit) + cell];
+	}
+}
@@ -0,0 +1,197 @@
+package radioanalyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of the values extracted from each log, so that logs which have not changed since the last run are not condensed again.
+ * Entries are keyed by the absolute path of the log and are only used while its size and last modified time are unchanged.
+ * Logs in a .zip archive are keyed by the path of the archive and the name of the entry, and follow the archive's size and time.
+ * @author abhi
+ */
+public class ExtractionCache {
+	private static final int MAGIC = 0x52414331; // "RAC1"
+	private static final int VERSION = 4; // Bump whenever the extraction or the format changes, which discards old caches
+	private static final String ENTRY_SEPARATOR = "!/"; // Between the path of a .zip archive and the name of an entry
+	
+	private final File file; // Where the cache is stored
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private volatile boolean changed = false; // Set by the extraction threads
+	
+	/**
+	 * Loads the cache from file. A missing, outdated or unreadable cache starts out empty.
+	 */
+	public ExtractionCache(File file) {
+		this.file = file;
+		if (!file.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				long size = in.readLong();
+				long modified = in.readLong();
+				entries.put(path, new Entry(size, modified, readRecord(in)));
+			}
+		} catch (EOFException e) {
+			entries.clear(); // The entries read so far may be from a cache that was being written when it was cut short
+			System.out.println("Ignoring truncated extraction cache " + file);
+		} catch (IOException e) {
+			entries.clear();
+			System.out.println("Ignoring unreadable extraction cache " + file + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Returns the default cache location in the user's home directory.
+	 */
+	public static File defaultFile() {
+		return new File(System.getProperty("user.home"), ".radioanalyzer" + File.separator + "extraction.cache");
+	}
+	
+	/**
+	 * Returns the cached values of log, or null if it has not been extracted before or has changed since.
+	 */
+	public LogRecord get(File log) {
+		Entry entry = entries.get(log.getAbsolutePath());
+		if (entry == null || entry.size != log.length() || entry.modified != log.lastModified()) {
+			return null;
+		}
+		return entry.record;
+	}
+	
+	/**
+	 * Caches the values extracted from log.
+	 * @param size: Size of log before it was read, so that a log changed while it was extracted is extracted again next time
+	 * @param modified: Last modified time of log before it was read
+	 */
+	public void put(File log, long size, long modified, LogRecord record) {
+		entries.put(log.getAbsolutePath(), new Entry(size, modified, record));
+		changed = true;
+	}
+	
+	/**
+	 * Returns the cached values of an entry of a .zip archive, or null if it has not been extracted before or the archive has changed since.
+	 */
+	public LogRecord get(File archive, String entryName) {
+		Entry entry = entries.get(archive.getAbsolutePath() + ENTRY_SEPARATOR + entryName);
+		if (entry == null || entry.size != archive.length() || entry.modified != archive.lastModified()) {
+			return null;
+		}
+		return entry.record;
+	}
+	
+	/**
+	 * Caches the values extracted from an entry of a .zip archive.
+	 * @param size: Size of the archive before it was opened, like put(log, size, modified, record)
+	 * @param modified: Last modified time of the archive before it was opened
+	 */
+	public void put(File archive, long size, long modified, String entryName, LogRecord record) {
+		entries.put(archive.getAbsolutePath() + ENTRY_SEPARATOR + entryName, new Entry(size, modified, record));
+		changed = true;
+	}
+	
+	/**
+	 * Writes the cache back to disk if anything was added, dropping entries of logs that no longer exist.
+	 */
+	public void save() throws IOException {
+		if (!changed) {
+			return;
+		}
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		File temp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			entries.keySet().removeIf(path -> !new File(path.split(ENTRY_SEPARATOR, 2)[0]).isFile());
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeLong(e.getValue().size);
+				out.writeLong(e.getValue().modified);
+				writeRecord(out, e.getValue().record);
+			}
+		}
+		// Replaced in one step so that an interrupted run never leaves a half written cache behind
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		changed = false;
+	}
+	
+	private static void writeRecord(DataOutputStream out, LogRecord record) throws IOException {
+		out.writeUTF(record.name);
+		out.writeLong(record.time);
+		out.writeBoolean(record.corrupt);
+		if (record.corrupt) {
+			out.writeUTF(record.defect);
+		}
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			writeDoubles(out, record.maxPowers[k]);
+			writeDoubles(out, record.minPowers[k]);
+		}
+		for (int value : record.lna) {
+			out.writeInt(value);
+		}
+	}
+	
+	private static LogRecord readRecord(DataInputStream in) throws IOException {
+		String name = in.readUTF();
+		long time = in.readLong();
+		String defect = in.readBoolean() ? in.readUTF() : null;
+		double[][] maxPowers = new double[ExtractionEngine.POWER_BANDS][];
+		double[][] minPowers = new double[ExtractionEngine.POWER_BANDS][];
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			maxPowers[k] = readDoubles(in);
+			minPowers[k] = readDoubles(in);
+		}
+		int[] lna = new int[ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES];
+		for (int i = 0; i < lna.length; i++) {
+			lna[i] = in.readInt();
+		}
+		return new LogRecord(name, time, maxPowers, minPowers, lna, defect);
+	}
+	
+	private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+		out.writeByte(values.length);
+		for (double value : values) {
+			out.writeDouble(value);
+		}
+	}
+	
+	private static double[] readDoubles(DataInputStream in) throws IOException {
+		double[] values = new double[in.readUnsignedByte()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
+	
+	/**
+	 * Cached values of a log along with the size and last modified time they were extracted at.
+	 */
+	private static class Entry {
+		final long size;
+		final long modified;
+		final LogRecord record;
+		
+		Entry(long size, long modified, LogRecord record) {
+			this.size = size;
+			this.modified = modified;
+			this.record = record;
+		}
+	}
+}
@@ -0,0 +1,681 @@
+package radioanalyzer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Condenses and extracts logs in parallel on a fork-join pool. The logs are read ahead by a ReadAhead, and each thread
+ * extracts whichever log has been read next, so that reading and parsing overlap.
+ * Logs can be plain .xml, gzip compressed .gz, or bundled in .zip archives whose entries are decompressed in parallel.
+ * @author abhi
+ */
+public class ExtractionEngine implements AutoCloseable {
+	public static final int POWER_BANDS = 6; // B2,B4,B5,B12,B13,B17
+	public static final int LNA_SETS = 10; // 6 regular: B2,B4,B5,B12,B13,B17 / 4 diversity: B5,B12,B13,B17
+	
+	// Target channels for LNA Offset data are in the middle of each bandwidth
+	private static final String[] TARGET_CHANNELS = { "18900", "20190", "20512", "23100", "23220", "23779", "20512", "23100", "23220", "23779" };
+	
+	// Markers of the keys and target channels, see LogCondenser.MARKERS
+	private static final int MAX_POWER = LogCondenser.MARKERS.indexOf("Tx Lin Swp Max Power");
+	private static final int MIN_POWER = LogCondenser.MARKERS.indexOf("Tx Lin Swp Min Power");
+	private static final int[] TARGET_MARKERS = new int[TARGET_CHANNELS.length];
+	private static final int READ_AHEAD = 2; // Logs read ahead for each extraction thread
+	private static final long READ_AHEAD_BYTES = 64L * 1024 * 1024; // Most the read-ahead buffers hold, however many threads
+	static {
+		for (int i = 0; i < TARGET_CHANNELS.length; i++) {
+			TARGET_MARKERS[i] = LogCondenser.MARKERS.indexOf(TARGET_CHANNELS[i]);
+		}
+	}
+	
+	private final ForkJoinPool pool;
+	private final ExtractionCache cache; // null when caching is disabled
+	private final PipelineMetrics metrics; // null when not measured
+	private final AtomicReference<ReadAhead.BufferPool> idleBuffers = new AtomicReference<ReadAhead.BufferPool>(); // Reused by the next run, null while in use
+	
+	/**
+	 * @param parallelism: Maximum number of logs processed at the same time
+	 * @param cache: Values of previously extracted logs, or null to extract every log
+	 */
+	public ExtractionEngine(int parallelism, ExtractionCache cache) {
+		this(parallelism, cache, null);
+	}
+	
+	/**
+	 * @param metrics: Receives the stage times of every log, or null
+	 */
+	public ExtractionEngine(int parallelism, ExtractionCache cache, PipelineMetrics metrics) {
+		pool = new ForkJoinPool(parallelism);
+		this.cache = cache;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Extracts every log on the pool. Logs found unchanged in the cache are not read at all.
+	 * @return LogRecord[] in the same order as logs, regardless of the order the tasks finish in, with the logs of each
+	 * .zip archive in the order of its entries.
+	 * Logs with a missing section or malformed data are returned quarantined, see LogRecord.defect.
+	 * @throws IOException if any of the logs cannot be read
+	 */
+	public LogRecord[] extractAll(File[] logs) throws IOException {
+		return extractAll(logs, null);
+	}
+	
+	/**
+	 * Extracts every log on the pool like extractAll(logs), also handing each record to check as soon as it is extracted,
+	 * such as to check it against ComplianceLimits. check is called concurrently from the extracting threads, and a
+	 * RuntimeException it throws stops the extraction and is thrown here.
+	 * @param check: Receives each record as it is extracted, or null
+	 */
+	public LogRecord[] extractAll(File[] logs, Consumer<LogRecord> check) throws IOException {
+		LogRecord[][] records = new LogRecord[logs.length][];
+		extract(logs, records, check, false);
+		return flatten(records);
+	}
+		
+	/**
+	 * Extracts only the data filter selects from every log on the pool, reading just the blocks of each log its SectionIndex
+	 * locates instead of the whole log. A log without an up-to-date sidecar is scanned whole once, and its sidecar written for
+	 * the next run. Compressed logs and .zip archives cannot be read from an offset, so they are still decompressed and scanned
+	 * whole, but only the selected values are extracted.
+	 * Only defects in the selected data quarantine a log, besides a missing section. The values that are not selected are
+	 * left as 0, so the records are never cached.
+	 * @return LogRecord[] in the same order as logs, like extractAll
+	 * @throws IOException if any of the logs cannot be read
+	 */
+	public LogRecord[] extractSelected(File[] logs, SectionFilter filter) throws IOException {
+		return extractSelected(logs, filter, null);
+	}
+	
+	/**
+	 * Extracts the data filter selects like extractSelected(logs, filter), also handing each record to check as soon as it
+	 * is extracted, like extractAll(logs, check).
+	 * @param check: Receives each record as it is extracted, or null
+	 */
+	public LogRecord[] extractSelected(File[] logs, SectionFilter filter, Consumer<LogRecord> check) throws IOException {
+		LogRecord[][] records = new LogRecord[logs.length][];
+		try {
+			pool.invoke(new SelectedTask(logs, filter, check, new AtomicBoolean(), records, 0, logs.length));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return flatten(records);
+	}
+	
+	/**
+	 * Returns the records of every file in order, with the logs of each .zip archive in the order of its entries.
+	 */
+	private static LogRecord[] flatten(LogRecord[][] records) {
+		List<LogRecord> all = new ArrayList<LogRecord>(records.length);
+		for (LogRecord[] fileRecords : records) {
+			for (LogRecord record : fileRecords) {
+				all.add(record);
+			}
+		}
+		return all.toArray(new LogRecord[0]);
+	}
+	
+	/**
+	 * Extracts every log on the pool like extractAll, except that a file which cannot be read is reported and left as null
+	 * instead of failing the other logs, for example because it is still being written. So is a log that stops before its
+	 * last section, instead of being quarantined and cached, so that it is extracted whole once it is fully written.
+	 * @return LogRecord[][] with the records of each file: one for a log, one per entry for a .zip archive.
+	 */
+	public LogRecord[][] extractReadable(File[] logs) {
+		LogRecord[][] records = new LogRecord[logs.length][];
+		try {
+			extract(logs, records, null, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // Every read error is skipped, so this is never thrown
+		}
+		return records;
+	}
+	
+	/**
+	 * Extracts every log on the pool like extractAll, but hands each record to sink as soon as it is extracted instead of
+	 * returning them, so that the records need not be kept. sink is called concurrently from the extracting threads.
+	 * @throws IOException if any of the logs cannot be read
+	 */
+	public void extractEach(File[] logs, Consumer<LogRecord> sink) throws IOException {
+		extract(logs, null, sink, false);
+	}
+	
+	/**
+	 * Extracts logs on every thread of the pool, each taking the next log read ahead until there are none left.
+	 * @param records: Receives the records of each log, or null
+	 * @param sink: Receives the records as they are extracted, or null
+	 * @param skipUnreadable: Leave a log that cannot be read or is not fully written as null and carry on, instead of failing
+	 * @throws IOException if a log cannot be read, unless skipUnreadable
+	 */
+	private void extract(File[] logs, LogRecord[][] records, Consumer<LogRecord> sink, boolean skipUnreadable) throws IOException {
+		ReadAhead.BufferPool buffers = idleBuffers.getAndSet(null);
+		if (buffers == null) { // First run, or another one is using the pool
+			buffers = new ReadAhead.BufferPool(READ_AHEAD * pool.getParallelism(), READ_AHEAD_BYTES);
+		}
+		ReadAhead readAhead = new ReadAhead(logs, cache, buffers, pool.getParallelism());
+		readAhead.start();
+		
+		AtomicReference<Exception> failure = new AtomicReference<Exception>(); // First log that failed the run
+		List<ForkJoinTask<?>> threads = new ArrayList<ForkJoinTask<?>>();
+		for (int t = 0; t < pool.getParallelism(); t++) {
+			threads.add(pool.submit(() -> extractNext(readAhead, records, sink, skipUnreadable, failure)));
+		}
+		for (ForkJoinTask<?> thread : threads) {
+			thread.join();
+		}
+		
+		if (buffers.isIdle()) {
+			idleBuffers.set(buffers);
+		}
+		Exception e = failure.get();
+		if (e instanceof IOException) {
+			throw (IOException) e;
+		} else if (e instanceof UncheckedIOException) {
+			throw ((UncheckedIOException) e).getCause();
+		} else if (e != null) {
+			throw (RuntimeException) e;
+		}
+	}
+	
+	/**
+	 * Extracts logs as they are read ahead until every log has been handed out. After a failure the remaining logs are
+	 * only released, so that reading stops.
+	 */
+	private void extractNext(ReadAhead readAhead, LogRecord[][] records, Consumer<LogRecord> sink, boolean skipUnreadable,
+			AtomicReference<Exception> failure) {
+		try {
+			ReadAhead.Log log;
+			while ((log = readAhead.take()) != null) {
+				try {
+					if (failure.get() == null) {
+						LogRecord[] logRecords = extract(log, skipUnreadable);
+						if (records != null) {
+							records[log.index] = logRecords;
+						}
+						if (sink != null) {
+							for (LogRecord record : logRecords) {
+								sink.accept(record);
+							}
+						}
+					}
+				} catch (IOException e) {
+					if (skipUnreadable) {
+						System.out.println("Skipping " + log.file.getName() + ": " + e.getMessage());
+					} else {
+						failure.compareAndSet(null, e);
+						readAhead.cancel();
+					}
+				} catch (RuntimeException e) { // Such as a sink that failed
+					failure.compareAndSet(null, e);
+					readAhead.cancel();
+				} finally {
+					readAhead.release(log);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, new IOException("Interrupted while waiting for the logs to be read"));
+			readAhead.cancel();
+		}
+	}
+	
+	/**
+	 * Returns the records of a log handed out by a ReadAhead: one for a log, one per entry for a .zip archive.
+	 * @param skipUnfinished: Throw for a log that stops before its last section instead of quarantining it, see requireFinished
+	 */
+	private LogRecord[] extract(ReadAhead.Log log, boolean skipUnfinished) throws IOException {
+		if (log.cached != null) {
+			if (metrics != null) {
+				metrics.logCached(log.cached.corrupt);
+			}
+			return new LogRecord[] { log.cached };
+		}
+		if (isZip(log.file)) {
+			return extractZip(log.file);
+		}
+		ByteBuffer contents = log.contents();
+		if (contents == null) { // Compressed or too big to be read ahead
+			return new LogRecord[] { extractCached(log.file, skipUnfinished) };
+		}
+		long start = System.nanoTime();
+		MarkerIndex markers = LogCondenser.index(contents);
+		if (skipUnfinished) {
+			requireFinished(markers);
+		}
+		LogRecord record = extract(log.file.getName(), log.modified, markers, start, metrics);
+		if (cache != null) {
+			cache.put(log.file, log.size, log.modified, record);
+		}
+		return new LogRecord[] { record };
+	}
+	
+	/**
+	 * Returns true if file is a .zip archive of logs.
+	 */
+	public static boolean isZip(File file) {
+		return file.getName().toLowerCase().endsWith(".zip");
+	}
+	
+	/**
+	 * Returns the cached values of log, condensing and extracting it only if it is not in the cache.
+	 */
+	private LogRecord extractCached(File log, boolean skipUnfinished) throws IOException {
+		LogRecord record = cache == null ? null : cache.get(log);
+		if (record == null) {
+			long size = log.length(); // Before reading, so a log that changes meanwhile is not cached as unchanged
+			long modified = log.lastModified();
+			record = extract(log, skipUnfinished, metrics);
+			if (cache != null) {
+				cache.put(log, size, modified, record);
+			}
+		} else if (metrics != null) {
+			metrics.logCached(record.corrupt);
+		}
+		return record;
+	}
+	
+	/**
+	 * Extracts every log in a .zip archive. The entries are decompressed and extracted in parallel on the pool.
+	 */
+	private LogRecord[] extractZip(File archive) throws IOException {
+		long size = archive.length(); // Before opening, so an archive that changes meanwhile is not cached as unchanged
+		long modified = archive.lastModified();
+		try (ZipFile zip = new ZipFile(archive)) {
+			List<ZipEntry> entries = entries(zip);
+			LogRecord[] records = new LogRecord[entries.size()];
+			try {
+				new EntryTask(archive, size, modified, zip, entries, records, 0, records.length).invoke();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return records;
+		}
+	}
+	
+	/**
+	 * Returns the entries of a .zip archive that are logs, leaving out directories and hidden files.
+	 */
+	private static List<ZipEntry> entries(ZipFile zip) {
+		List<ZipEntry> entries = new ArrayList<ZipEntry>();
+		for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+			ZipEntry entry = e.nextElement();
+			String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+			if (!entry.isDirectory() && !name.startsWith(".")) {
+				entries.add(entry);
+			}
+		}
+		return entries;
+	}
+	
+	/**
+	 * Returns the cached values of an entry of a .zip archive, decompressing and extracting it only if it is not in the cache.
+	 * @param size: Size of the archive before it was opened
+	 * @param modified: Last modified time of the archive before it was opened
+	 */
+	private LogRecord extractCached(File archive, long size, long modified, ZipFile zip, ZipEntry entry) throws IOException {
+		LogRecord record = cache == null ? null : cache.get(archive, entry.getName());
+		if (record == null) {
+			try (InputStream in = zip.getInputStream(entry)) {
+				InputStream log = LogCondenser.isGzip(entry.getName()) ? new GZIPInputStream(in) : in;
+				record = extract(archive.getName() + "/" + entry.getName(), Math.max(0, entry.getTime()), log, metrics);
+			}
+			if (cache != null) {
+				cache.put(archive, size, modified, entry.getName(), record);
+			}
+		} else if (metrics != null) {
+			metrics.logCached(record.corrupt);
+		}
+		return record;
+	}
+	
+	/**
+	 * Condenses a single log and extracts its Tx Linearizer and LNA Offset data.
+	 */
+	public static LogRecord extract(File log) throws IOException {
+		return extract(log, null);
+	}
+	
+	/**
+	 * Condenses a single log and extracts its Tx Linearizer and LNA Offset data, recording the time of each stage in metrics.
+	 * Every marker is located in one pass over the log, the sections and values are then found from the markers.
+	 * @param metrics: null to not measure
+	 */
+	public static LogRecord extract(File log, PipelineMetrics metrics) throws IOException {
+		return extract(log, false, metrics);
+	}
+	
+	private static LogRecord extract(File log, boolean skipUnfinished, PipelineMetrics metrics) throws IOException {
+		long start = System.nanoTime();
+		long time = log.lastModified();
+		MarkerIndex markers;
+		try {
+			markers = LogCondenser.index(log);
+		} catch (ZipException e) {
+			return undecompressable(log.getName(), time, e, start, metrics);
+		}
+		if (skipUnfinished) {
+			requireFinished(markers);
+		}
+		return extract(log.getName(), time, markers, start, metrics);
+	}
+	
+	/**
+	 * Throws for a log that stops before its last section, so that a log still being written is left to be read again
+	 * like a .gz cut short, instead of being quarantined. The entries of a .zip archive are never checked: an archive
+	 * cannot be opened until it is fully written.
+	 * @throws EOFException if the log is not fully written
+	 */
+	private static void requireFinished(MarkerIndex markers) throws EOFException {
+		if (!LogCondenser.isFinished(markers)) {
+			throw new EOFException("not fully written, it stops before its last section");
+		}
+	}
+	
+	/**
+	 * Condenses a log read from a stream, such as a decompressing one, and extracts its Tx Linearizer and LNA Offset data.
+	 * @param name: Name of the log in its LogRecord
+	 * @param time: When the log was written, in ms since the epoch, 0 when unknown
+	 * @param metrics: null to not measure
+	 */
+	public static LogRecord extract(String name, long time, InputStream in, PipelineMetrics metrics) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return extract(name, time, LogCondenser.index(in), start, metrics);
+		} catch (ZipException e) {
+			return undecompressable(name, time, e, start, metrics);
+		}
+	}
+	
+	/**
+	 * Quarantines a compressed log whose data is corrupt. Other read errors still fail the run, and a log cut short is
+	 * left to be read again once it is fully written (see LogWatcher).
+	 */
+	private static LogRecord undecompressable(String name, long time, IOException e, long start, PipelineMetrics metrics) {
+		if (metrics != null) {
+			metrics.logExtracted(0, System.nanoTime() - start, 0, 0, true);
+		}
+		return LogRecord.quarantined(name, time, "cannot be decompressed" + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+	}
+	
+	/**
+	 * Extracts a log whose markers were located since start.
+	 * A log with a missing section or malformed data is returned quarantined, with the first defect found, instead of
+	 * failing the run. Nothing is thrown either way, so valid logs never pay for exceptions.
+	 */
+	private static LogRecord extract(String name, long time, MarkerIndex markers, long start, PipelineMetrics metrics) {
+		LogSection[] sections = new LogSection[LNA_SETS];
+		String defect = LogCondenser.condense(markers, sections);
+		long condensed = System.nanoTime();
+		if (defect != null) {
+			if (metrics != null) {
+				metrics.logExtracted(markers.bytesRead(), condensed - start, 0, 0, true);
+			}
+			return LogRecord.quarantined(name, time, defect);
+		}
+		
+		double[][] maxPowers = new double[POWER_BANDS][];
+		double[][] minPowers = new double[POWER_BANDS][];
+		for (int k = 0; k < POWER_BANDS; k++) {
+			maxPowers[k] = Analyze.extractPower(sections[k], markers, MAX_POWER); // Extract Tx Lin Swp Max Power from .xml Log file
+			minPowers[k] = Analyze.extractPower(sections[k], markers, MIN_POWER); // Extract Tx Lin Swp Min Power from .xml Log file
+			if (maxPowers[k] == null || minPowers[k] == null) {
+				if (defect == null) {
+					defect = "malformed " + (maxPowers[k] == null ? "Tx Lin Swp Max Power" : "Tx Lin Swp Min Power") + " in " + LogCondenser.sectionName(k);
+				}
+				maxPowers[k] = maxPowers[k] == null ? new double[4] : maxPowers[k];
+				minPowers[k] = minPowers[k] == null ? new double[4] : minPowers[k];
+			}
+		}
+		
+		long powersExtracted = System.nanoTime();
+		
+		int[] lna = new int[LNA_SETS * LogRecord.LNA_VALUES];
+		for (int i = 0; i < LNA_SETS; i++) {
+			int offset = LogRecord.lnaIndex(i, 0, 0);
+			if (Analyze.getRxFCompLNAOffset(sections[i], markers, TARGET_MARKERS[i], lna, offset, LogRecord.LNA_VALUES) == Analyze.MALFORMED) {
+				if (defect == null) {
+					defect = "malformed RxFCompLNAOffset in " + LogCondenser.sectionName(i);
+				}
+				Arrays.fill(lna, offset, offset + LogRecord.LNA_VALUES, 0); // Sets LNA Offset values to 0
+			}
+		}
+		if (metrics != null) {
+			long end = System.nanoTime();
+			metrics.logExtracted(markers.bytesRead(), condensed - start, powersExtracted - condensed, end - powersExtracted, defect != null);
+		}
+		return new LogRecord(name, time, maxPowers, minPowers, lna, defect);
+	}
+	
+	/**
+	 * Returns the records of a file with only the data filter selects: one for a log, one per entry for a .zip archive.
+	 */
+	private LogRecord[] extractSelected(File file, SectionFilter filter) throws IOException {
+		if (isZip(file)) {
+			try (ZipFile zip = new ZipFile(file)) {
+				List<ZipEntry> entries = entries(zip);
+				LogRecord[] records = new LogRecord[entries.size()];
+				for (int i = 0; i < records.length; i++) {
+					ZipEntry entry = entries.get(i);
+					try (InputStream in = zip.getInputStream(entry)) {
+						records[i] = extractSelected(file.getName() + "/" + entry.getName(), Math.max(0, entry.getTime()),
+								LogCondenser.isGzip(entry.getName()) ? new GZIPInputStream(in) : in, filter);
+					}
+				}
+				return records;
+			}
+		}
+		if (LogCondenser.isGzip(file.getName())) {
+			try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+				return new LogRecord[] { extractSelected(file.getName(), file.lastModified(), in, filter) };
+			} catch (ZipException e) {
+				return new LogRecord[] { undecompressable(file.getName(), file.lastModified(), e, System.nanoTime(), metrics) };
+			}
+		}
+		
+		long start = System.nanoTime();
+		long size = file.length(); // Before mapping, so the sidecar of a log that changes meanwhile is not taken as up to date
+		long modified = file.lastModified();
+		ByteBuffer buf = LogCondenser.map(file);
+		SectionIndex index = SectionIndex.read(file, size, modified);
+		MarkerIndex markers = null; // Each block is scanned on its own when the log is indexed
+		if (index == null) {
+			markers = LogCondenser.index(buf);
+			index = SectionIndex.of(markers);
+			try {
+				index.write(file, size, modified);
+			} catch (IOException e) {
+				// Such as a read-only directory, the next run scans the log whole again
+			}
+		}
+		return new LogRecord[] { extractSelected(file.getName(), modified, buf, index, markers, filter, start, metrics) };
+	}
+	
+	/**
+	 * Returns the record of a log read from a stream with only the data filter selects.
+	 */
+	private LogRecord extractSelected(String name, long time, InputStream in, SectionFilter filter) throws IOException {
+		long start = System.nanoTime();
+		MarkerIndex markers;
+		try {
+			markers = LogCondenser.index(in);
+		} catch (ZipException e) {
+			return undecompressable(name, time, e, start, metrics);
+		}
+		return extractSelected(name, time, markers.text().buffer(), SectionIndex.of(markers), markers, filter, start, metrics);
+	}
+	
+	/**
+	 * Extracts the data filter selects from the blocks of a log located by index, like extract(name, time, markers, start, metrics)
+	 * does for the whole log.
+	 * @param markers: Markers of the whole log, or null to scan only the selected blocks
+	 */
+	private static LogRecord extractSelected(String name, long time, ByteBuffer buf, SectionIndex index, MarkerIndex markers,
+			SectionFilter filter, long start, PipelineMetrics metrics) {
+		int bytesRead = markers == null ? 0 : markers.bytesRead();
+		long condensed = System.nanoTime();
+		if (index.defect != null) {
+			if (metrics != null) {
+				metrics.logExtracted(bytesRead, condensed - start, 0, 0, true);
+			}
+			return LogRecord.quarantined(name, time, index.defect);
+		}
+		
+		String defect = null;
+		double[][] maxPowers = new double[POWER_BANDS][4];
+		double[][] minPowers = new double[POWER_BANDS][4];
+		for (int k = 0; k < POWER_BANDS; k++) {
+			if (!filter.tx(k)) {
+				continue;
+			}
+			LogSection block = new LogSection(buf, index.txStart(k), index.txEnd(k));
+			MarkerIndex blockMarkers = markers != null ? markers : LogCondenser.MARKERS.scan(buf, index.txStart(k), index.txEnd(k));
+			bytesRead += markers != null ? 0 : block.length();
+			double[] max = Analyze.extractPower(block, blockMarkers, MAX_POWER);
+			double[] min = Analyze.extractPower(block, blockMarkers, MIN_POWER);
+			if ((max == null || min == null) && defect == null) {
+				defect = "malformed " + (max == null ? "Tx Lin Swp Max Power" : "Tx Lin Swp Min Power") + " in " + LogCondenser.sectionName(k);
+			}
+			maxPowers[k] = max == null ? maxPowers[k] : max;
+			minPowers[k] = min == null ? minPowers[k] : min;
+		}
+		
+		long powersExtracted = System.nanoTime();
+		
+		int[] lna = new int[LNA_SETS * LogRecord.LNA_VALUES];
+		for (int i = 0; i < LNA_SETS; i++) {
+			if (!filter.lna(i)) {
+				continue;
+			}
+			LogSection block = new LogSection(buf, index.lnaStart(i), index.end(i));
+			MarkerIndex blockMarkers = markers != null ? markers : LogCondenser.MARKERS.scan(buf, index.lnaStart(i), index.end(i));
+			bytesRead += markers != null ? 0 : block.length();
+			int offset = LogRecord.lnaIndex(i, 0, 0);
+			if (Analyze.getRxFCompLNAOffset(block, blockMarkers, TARGET_MARKERS[i], lna, offset, LogRecord.LNA_VALUES) == Analyze.MALFORMED) {
+				if (defect == null) {
+					defect = "malformed RxFCompLNAOffset in " + LogCondenser.sectionName(i);
+				}
+				Arrays.fill(lna, offset, offset + LogRecord.LNA_VALUES, 0); // Sets LNA Offset values to 0
+			}
+		}
+		if (metrics != null) {
+			long end = System.nanoTime();
+			metrics.logExtracted(bytesRead, condensed - start, powersExtracted - condensed, end - powersExtracted, defect != null);
+		}
+		return new LogRecord(name, time, maxPowers, minPowers, lna, defect);
+	}
+	
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+	
+	/**
+	 * Splits [from, to) of the entries of a .zip archive in half until every entry is its own task.
+	 * Each task inflates its entry with its own stream, so the entries are decompressed in parallel.
+	 */
+	private class EntryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final File archive;
+		private final long size; // Of the archive before it was opened
+		private final long modified;
+		private final ZipFile zip;
+		private final List<ZipEntry> entries;
+		private final LogRecord[] records;
+		private final int from;
+		private final int to;
+		
+		EntryTask(File archive, long size, long modified, ZipFile zip, List<ZipEntry> entries, LogRecord[] records, int from, int to) {
+			this.archive = archive;
+			this.size = size;
+			this.modified = modified;
+			this.zip = zip;
+			this.entries = entries;
+			this.records = records;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new EntryTask(archive, size, modified, zip, entries, records, from, mid),
+						new EntryTask(archive, size, modified, zip, entries, records, mid, to));
+			} else if (to > from) {
+				try {
+					records[from] = extractCached(archive, size, modified, zip, entries.get(from));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splits [from, to) of the files of a selected extraction in half until every file is its own task.
+	 * Once a file fails, the files not yet started are skipped.
+	 */
+	private class SelectedTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final File[] logs;
+		private final SectionFilter filter;
+		private final Consumer<LogRecord> check; // null when the records are not checked
+		private final AtomicBoolean failed; // Shared by every task of the extraction
+		private final LogRecord[][] records;
+		private final int from;
+		private final int to;
+		
+		SelectedTask(File[] logs, SectionFilter filter, Consumer<LogRecord> check, AtomicBoolean failed, LogRecord[][] records, int from, int to) {
+			this.logs = logs;
+			this.filter = filter;
+			this.check = check;
+			this.failed = failed;
+			this.records = records;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new SelectedTask(logs, filter, check, failed, records, from, mid),
+						new SelectedTask(logs, filter, check, failed, records, mid, to));
+			} else if (to > from && !failed.get()) {
+				try {
+					records[from] = extractSelected(logs[from], filter);
+					if (check != null) {
+						for (LogRecord record : records[from]) {
+							check.accept(record);
+						}
+					}
+				} catch (IOException e) {
+					failed.set(true);
+					throw new UncheckedIOException(e);
+				} catch (RuntimeException e) { // Such as a check that failed
+					failed.set(true);
+					throw e;
+				}
+			}
+		}
+	}
+}
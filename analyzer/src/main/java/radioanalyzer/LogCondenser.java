@@ -0,0 +1,213 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class to extract ESC LTE data from QDART Test Report logs.
+ * @author abhi
+ */
+public class LogCondenser {
+	// 6 regular: B2,B4,B5,B12,B13,B17 / 4 diversity: B5,B12,B13,B17
+	private static final String[] REGULAR = {"ESC LTE B2", "ESC LTE B4", "ESC LTE B5", "ESC LTE B12", "ESC LTE B13", "ESC LTE B17"};
+	private static final String[] DIVERSITY = {"ESC LTE B5", "ESC LTE B12", "ESC LTE B13", "ESC LTE B17"};
+	private static final String END_SET_1 = "ESC LTE B17</ExtendedName><NodeName>ESC LTE B17</NodeName>";
+	private static final String END_DIVERSITY = "Run_RSB_Pcell_Tx_LO_Cal";
+	private static final int STREAM_CHUNK = 64 * 1024; // Bytes read from a compressed log at a time
+	
+	// Keys and target channels the extractors look up in the sections
+	private static final String[] KEYS = {"Tx Lin Swp Max Power", "Tx Lin Swp Min Power", "LNA", "RxFCompLNAOffset", "Channel"};
+	private static final String[] CHANNELS = {"18900", "20190", "20512", "23100", "23220", "23779"};
+	
+	/**
+	 * Every marker the condenser and extractors look for, located in one pass per log.
+	 */
+	public static final MarkerAutomaton MARKERS = new MarkerAutomaton(markerTable());
+	
+	private static final int[] REGULAR_MARKERS = markerIds(REGULAR);
+	private static final int[] DIVERSITY_MARKERS = markerIds(DIVERSITY);
+	private static final int END_SET_1_MARKER = MARKERS.indexOf(END_SET_1);
+	private static final int END_DIVERSITY_MARKER = MARKERS.indexOf(END_DIVERSITY);
+	
+	/**
+	 * Memory-maps a log and locates every marker in MARKERS in one pass.
+	 * A gzip compressed log (.gz) is decompressed as a stream instead, see index(InputStream).
+	 * @return MarkerIndex of the first line of the log, which holds all of the ESC LTE data
+	 * @throws IOException if the log cannot be read
+	 */
+	public static MarkerIndex index(File log) throws IOException {
+		if (isGzip(log.getName())) {
+			try (InputStream in = new GZIPInputStream(new FileInputStream(log), STREAM_CHUNK)) {
+				return index(in);
+			}
+		}
+		return index(map(log));
+	}
+	
+	/**
+	 * Memory-maps a whole log. Nothing is read until the returned buffer is, so only the parts of the log that are used
+	 * are ever read from disk.
+	 */
+	public static ByteBuffer map(File log) throws IOException {
+		try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+	
+	/**
+	 * Locates every marker in MARKERS in a log already in memory, such as one read ahead by ReadAhead.
+	 * @param contents: The log from 0 to its limit
+	 * @return MarkerIndex of the first line of the log, which holds all of the ESC LTE data
+	 */
+	public static MarkerIndex index(ByteBuffer contents) {
+		return MARKERS.scan(contents, 0, lineEnd(contents)); // The ESC LTE data is all on the first line of the log
+	}
+	
+	/**
+	 * Reads a log from a stream, such as a decompressing one, and locates every marker in MARKERS in one pass.
+	 * Only the first line of the log is read; the rest of the stream is never decompressed.
+	 * @return MarkerIndex of the first line of the log
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static MarkerIndex index(InputStream in) throws IOException {
+		byte[] bytes = new byte[STREAM_CHUNK];
+		int length = 0;
+		int lineEnd = -1;
+		while (lineEnd < 0) {
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			int read = in.read(bytes, length, bytes.length - length);
+			if (read < 0) {
+				break;
+			}
+			for (int i = length; i < length + read; i++) {
+				if (bytes[i] == '\n' || bytes[i] == '\r') {
+					lineEnd = i;
+					break;
+				}
+			}
+			length += read;
+		}
+		ByteBuffer buf = ByteBuffer.wrap(bytes, 0, length);
+		return MARKERS.scan(buf, 0, lineEnd < 0 ? length : lineEnd);
+	}
+	
+	/**
+	 * Returns true if a log of this name is gzip compressed.
+	 */
+	public static boolean isGzip(String name) {
+		return name.toLowerCase().endsWith(".gz");
+	}
+	
+	/**
+	 * Extracts the 10 ESC LTE sections of a log from the markers located by index(log), without scanning the log again.
+	 * A missing section is reported as the return value instead of thrown, so that malformed logs cost no more than valid ones.
+	 * @param sections: Receives the 10 sections
+	 * @return null, or the defect of the log, such as "missing ESC LTE B13".
+	 */
+	public static String condense(MarkerIndex markers, LogSection[] sections) {
+		LogSection lines = markers.text();
+		
+		// Boundaries of the 10 sections in the order they appear in the log, the last entry being the end of B17 Diversity
+		int[] bounds = new int[REGULAR.length + DIVERSITY.length + 1];
+		int pos = 0;
+		for (int e = 0; e < REGULAR.length; e++) {
+			pos = markers.indexOf(REGULAR_MARKERS[e], lines, pos);
+			if (pos < 0) {
+				return "missing " + REGULAR[e];
+			}
+			bounds[e] = pos;
+		}
+		
+		// Only considering B5-17 Diversity, which start after the header of the first LTE B17
+		pos = markers.indexOf(END_SET_1_MARKER, lines, pos);
+		if (pos < 0) {
+			return "missing the end of " + REGULAR[REGULAR.length - 1];
+		}
+		pos += END_SET_1.length();
+		for (int e = 0; e < DIVERSITY.length; e++) {
+			pos = markers.indexOf(DIVERSITY_MARKERS[e], lines, pos);
+			if (pos < 0) {
+				return "missing " + DIVERSITY[e] + " Diversity";
+			}
+			bounds[REGULAR.length + e] = pos;
+		}
+		pos = markers.indexOf(END_DIVERSITY_MARKER, lines, pos); // B17 Diversity is the last LTE band
+		if (pos < 0) {
+			return "missing " + END_DIVERSITY;
+		}
+		bounds[bounds.length - 1] = pos;
+		
+		// Each section ends where the next one starts
+		for (int e = 0; e < sections.length; e++) {
+			sections[e] = lines.subSequence(bounds[e], bounds[e + 1]);
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns true if the ESC LTE data of a log runs up to Run_RSB_Pcell_Tx_LO_Cal, which follows B17 Diversity.
+	 * A log without it stops before its last section, such as one that is still being written.
+	 */
+	public static boolean isFinished(MarkerIndex markers) {
+		return markers.count(END_DIVERSITY_MARKER) > 0;
+	}
+	
+	/**
+	 * Returns the name of an ESC LTE section of condense, such as "ESC LTE B13 Diversity".
+	 */
+	public static String sectionName(int section) {
+		return section < REGULAR.length ? REGULAR[section] : DIVERSITY[section - REGULAR.length] + " Diversity";
+	}
+	
+	/**
+	 * Returns the index of the first line terminator in buf, or its limit if there is none.
+	 */
+	private static int lineEnd(ByteBuffer buf) {
+		int limit = buf.limit();
+		for (int i = 0; i < limit; i++) {
+			byte b = buf.get(i);
+			if (b == '\n' || b == '\r') {
+				return i;
+			}
+		}
+		return limit;
+	}
+	
+	/**
+	 * Returns the band markers, the ends of the regular and diversity sets, then the keys and channels.
+	 * DIVERSITY repeats markers of REGULAR, so it is not added again.
+	 */
+	private static String[] markerTable() {
+		String[] table = new String[REGULAR.length + 2 + KEYS.length + CHANNELS.length];
+		int m = 0;
+		for (String marker : REGULAR) {
+			table[m++] = marker;
+		}
+		table[m++] = END_SET_1;
+		table[m++] = END_DIVERSITY;
+		for (String key : KEYS) {
+			table[m++] = key;
+		}
+		for (String channel : CHANNELS) {
+			table[m++] = channel;
+		}
+		return table;
+	}
+	
+	private static int[] markerIds(String[] markers) {
+		int[] ids = new int[markers.length];
+		for (int i = 0; i < markers.length; i++) {
+			ids[i] = MARKERS.indexOf(markers[i]);
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,60 @@
+package radioanalyzer;
+
+/**
+ * Tx Linearizer and LNA Offset values extracted from a single log.
+ * @author abhi
+ */
+public class LogRecord {
+	public static final int LNA_VALUES = RunAggregate.DEVICES * RunAggregate.RX_LVLS; // Values of each LNA set, see lnaIndex
+	
+	public final String name; // Log file name
+	public final long time; // When the log was written, from its file or .zip entry, in ms since the epoch, 0 when unknown
+	public final double[][] maxPowers; // [band][Tx Max PA State 3, Tx Max PA State 0, APT Tx Max PA State 3, APT Tx Max PA State 0] for B2-B17
+	public final double[][] minPowers; // [band][Tx Min PA State 3, Tx Min PA State 0, APT Tx Min PA State 3, APT Tx Min PA State 0] for B2-B17
+	public final int[] lna; // RxFCompLNAOffset values for B2-B17 followed by B5-B17 Diversity, see lnaIndex
+	public final String defect; // Why the log is quarantined, such as a missing section or a malformed value, null when it is valid
+	public final boolean corrupt; // Quarantined, in which case the log is left out of every statistic
+	
+	public LogRecord(String name, long time, double[][] maxPowers, double[][] minPowers, int[] lna, String defect) {
+		this.name = name;
+		this.time = time;
+		this.maxPowers = maxPowers;
+		this.minPowers = minPowers;
+		this.lna = lna;
+		this.defect = defect;
+		this.corrupt = defect != null;
+	}
+	
+	/**
+	 * Returns the record of a log quarantined before any of its values could be extracted, with every value 0.
+	 */
+	public static LogRecord quarantined(String name, long time, String defect) {
+		double[][] maxPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		double[][] minPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		return new LogRecord(name, time, maxPowers, minPowers, new int[ExtractionEngine.LNA_SETS * LNA_VALUES], defect);
+	}
+	
+	/**
+	 * Returns the value of a RunAggregate series of a band, such as RunAggregate.APT_MIN_3.
+	 */
+	public double power(int band, int series) {
+		switch (series) {
+		case RunAggregate.TX_MAX_3: return maxPowers[band][0];
+		case RunAggregate.TX_MAX_0: return maxPowers[band][1];
+		case RunAggregate.APT_MAX_3: return maxPowers[band][2];
+		case RunAggregate.APT_MAX_0: return maxPowers[band][3];
+		case RunAggregate.TX_MIN_3: return minPowers[band][0];
+		case RunAggregate.TX_MIN_0: return minPowers[band][1];
+		case RunAggregate.APT_MIN_3: return minPowers[band][2];
+		default: return minPowers[band][3];
+		}
+	}
+	
+	/**
+	 * Returns the index in lna of the RxFCompLNAOffset of an LNA set, device and RxLvl.
+	 * Every set has room for 4 devices; only B2 and B4 use more than the first.
+	 */
+	public static int lnaIndex(int set, int device, int rxLvl) {
+		return (set * RunAggregate.DEVICES + device) * RunAggregate.RX_LVLS + rxLvl;
+	}
+}
@@ -0,0 +1,109 @@
+package radioanalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view over a range of a log, backed by the buffer the log was read into.
+ * Views are created without copying, so the band sections of a log all share the same buffer.
+ * Each byte is exposed as one char, which is exact for the ASCII markup and values of the QDART logs.
+ * @author abhi
+ */
+public class LogSection implements CharSequence {
+	private final ByteBuffer buf; // Entire log
+	private final int start; // Absolute index of the first byte of the view
+	private final int end; // Absolute index after the last byte of the view
+	
+	public LogSection(ByteBuffer buf, int start, int end) {
+		if (start < 0 || end > buf.limit() || start > end) {
+			throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", limit " + buf.limit());
+		}
+		this.buf = buf;
+		this.start = start;
+		this.end = end;
+	}
+	
+	/**
+	 * Returns the absolute index of the first byte of the view in the log.
+	 */
+	int absoluteStart() {
+		return start;
+	}
+	
+	/**
+	 * Returns the absolute index after the last byte of the view in the log.
+	 */
+	int absoluteEnd() {
+		return end;
+	}
+	
+	/**
+	 * Returns the buffer of the entire log, for readers that parse it in place such as ValueReader.
+	 */
+	ByteBuffer buffer() {
+		return buf;
+	}
+	
+	@Override
+	public int length() {
+		return end - start;
+	}
+	
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length()) {
+			throw new StringIndexOutOfBoundsException("index " + index + ", length " + length());
+		}
+		return (char) (buf.get(start + index) & 0xFF);
+	}
+	
+	/**
+	 * Returns a view of [beginIndex, endIndex) of this view. Nothing is copied.
+	 * @throws StringIndexOutOfBoundsException if the range is outside of this view, like String.substring
+	 */
+	@Override
+	public LogSection subSequence(int beginIndex, int endIndex) {
+		if (beginIndex < 0 || endIndex > length() || beginIndex > endIndex) {
+			throw new StringIndexOutOfBoundsException("begin " + beginIndex + ", end " + endIndex + ", length " + length());
+		}
+		return new LogSection(buf, start + beginIndex, start + endIndex);
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of str in this view, or -1 if there is none.
+	 */
+	public int indexOf(String str) {
+		return indexOf(str, 0);
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of str in this view at or after fromIndex, or -1 if there is none.
+	 */
+	public int indexOf(String str, int fromIndex) {
+		int last = end - str.length();
+		char first = str.charAt(0);
+		for (int i = start + Math.max(fromIndex, 0); i <= last; i++) {
+			if ((buf.get(i) & 0xFF) != first) {
+				continue;
+			}
+			int j = 1;
+			while (j < str.length() && (buf.get(i + j) & 0xFF) == str.charAt(j)) {
+				j++;
+			}
+			if (j == str.length()) {
+				return i - start;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Copies the view into a String. Only meant for short values.
+	 */
+	@Override
+	public String toString() {
+		byte[] bytes = new byte[length()];
+		buf.get(start, bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,297 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory of QDART Test Report logs and keeps "Organized Data.xlsx" up to date as new logs land in it.
+ * Only new logs are extracted, and each is added to the running aggregate of the logs seen so far once its size and last
+ * modified time have stayed the same for the debounce time, so that a log still being copied is not read half-written.
+ * Each file name is added once: a log written to again after it was added is not extracted again, so it is never counted twice.
+ * Usage: LogWatcher inputDirectory [--debounce seconds] [--threads N] [--cache FILE | --no-cache] [--trend-bucket minutes] [--trend-window buckets] [--trend-retention days]
+ * @author abhi
+ */
+public class LogWatcher implements AutoCloseable {
+	private final File inputDirectory; // Directory with all the .xml Log files
+	private final File report; // Output Excel file
+	private final ExtractionEngine engine;
+	private final ExtractionCache cache; // null when caching is disabled
+	private final PipelineMetrics metrics; // Totals since the watcher started
+	private final long debounce; // Milliseconds a log must stay unchanged, and without new logs, before the report is regenerated
+	private final RunAggregate aggregate; // Logs seen so far
+	private final Set<String> processed = new HashSet<String>(); // Names of the files in the aggregate
+	private final Map<String, String> unfinished = new HashMap<String, String>(); // Stamp of each log left out as not fully written, by name
+	private final Map<File, Pending> pending = new LinkedHashMap<File, Pending>(); // New logs waiting to stay unchanged
+	private final ResultsStore.Writer store; // Values of every log in the aggregate
+	private final Map<String, String> quarantine = new LinkedHashMap<String, String>(); // Defect of each quarantined log
+	
+	/**
+	 * @param aggregate: Receives the logs once they have settled, with the trend buckets to use
+	 * @throws IOException if the results store cannot be created in inputDirectory
+	 */
+	public LogWatcher(File inputDirectory, ExtractionEngine engine, ExtractionCache cache, PipelineMetrics metrics, long debounce, RunAggregate aggregate) throws IOException {
+		this.inputDirectory = inputDirectory;
+		this.report = Analyze.reportFile(inputDirectory);
+		this.engine = engine;
+		this.cache = cache;
+		this.metrics = metrics;
+		this.debounce = debounce;
+		this.aggregate = aggregate;
+		store = new ResultsStore.Writer(Analyze.storeFile(inputDirectory));
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		final File inputDirectory = new File(args[0]);
+		long debounce = 10000;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		File cacheFile = ExtractionCache.defaultFile();
+		long trendBucket = TrendStats.DEFAULT_BUCKET;
+		int trendWindow = TrendStats.DEFAULT_WINDOW;
+		long trendRetention = TimeUnit.DAYS.toMillis(30); // The watcher never stops, so old buckets are expired
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--debounce")) {
+				debounce = (long) (Double.parseDouble(args[++i]) * 1000);
+			} else if (args[i].equals("--threads")) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--cache")) {
+				cacheFile = new File(args[++i]);
+			} else if (args[i].equals("--no-cache")) {
+				cacheFile = null;
+			} else if (args[i].equals("--trend-bucket")) {
+				trendBucket = Math.round(Double.parseDouble(args[++i]) * 60000);
+			} else if (args[i].equals("--trend-window")) {
+				trendWindow = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--trend-retention")) {
+				trendRetention = Math.round(Double.parseDouble(args[++i]) * TimeUnit.DAYS.toMillis(1));
+			}
+		}
+		if (!inputDirectory.isDirectory()) {
+			throw new IOException(inputDirectory + " is not a directory");
+		}
+		
+		ExtractionCache cache = cacheFile == null ? null : new ExtractionCache(cacheFile);
+		PipelineMetrics metrics = new PipelineMetrics();
+		metrics.register();
+		RunAggregate aggregate = new RunAggregate(trendBucket, trendWindow);
+		aggregate.getTrend().setRetention(trendRetention);
+		try (ExtractionEngine engine = new ExtractionEngine(parallelism, cache, metrics);
+				LogWatcher watcher = new LogWatcher(inputDirectory, engine, cache, metrics, debounce, aggregate)) {
+			watcher.watch();
+		}
+	}
+	
+	/**
+	 * Processes the logs already in the directory, then updates the report whenever new logs have stopped arriving
+	 * for the debounce time, or have kept arriving for ten times as long. Runs until the directory goes away.
+	 */
+	public void watch() throws IOException, InterruptedException {
+		try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			// Registered before listing the directory so that no log can land in between unnoticed
+			inputDirectory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			scan();
+			System.out.println("Watching " + inputDirectory + " for new logs...");
+			
+			long firstPending = System.currentTimeMillis(); // When the oldest pending log arrived, or the last update
+			while (true) {
+				WatchKey key;
+				if (pending.isEmpty()) {
+					key = watcher.take();
+				} else {
+					long waited = System.currentTimeMillis() - firstPending;
+					key = watcher.poll(Math.max(0, Math.min(debounce, debounce * 10 - waited)), TimeUnit.MILLISECONDS);
+				}
+				
+				if (key == null) { // Quiet for the debounce time, or the oldest pending log has waited long enough
+					update();
+					firstPending = System.currentTimeMillis(); // Logs still changing wait for another debounce
+					continue;
+				}
+				
+				boolean wasEmpty = pending.isEmpty();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						rescan(); // Events were lost, so look at the whole directory again
+					} else {
+						queue(new File(inputDirectory, ((Path) event.context()).toString()));
+					}
+				}
+				if (wasEmpty && !pending.isEmpty()) {
+					firstPending = System.currentTimeMillis();
+				}
+				if (!key.reset()) {
+					System.out.println(inputDirectory + " is no longer accessible.");
+					update();
+					return;
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// Watch service closed while waiting, nothing left to do
+		}
+	}
+	
+	/**
+	 * Looks at the whole directory and adds the new logs that have stayed unchanged for the debounce time, as watch does
+	 * when it is quiet.
+	 */
+	void scan() throws IOException {
+		rescan();
+		update();
+	}
+	
+	/**
+	 * Queues every log in the directory that has not been processed yet.
+	 */
+	private void rescan() {
+		File[] files = inputDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				queue(file);
+			}
+		}
+	}
+	
+	/**
+	 * Queues file if it is a log that has not been processed yet, or notes that it has changed since it was queued.
+	 */
+	private void queue(File file) {
+		String name = file.getName();
+		if (!file.isFile() || name.startsWith(".") || name.startsWith("~$") || Analyze.isOutput(inputDirectory, file)
+				|| processed.contains(name)) {
+			return;
+		}
+		String stamp = stamp(file);
+		if (stamp.equals(unfinished.get(name))) {
+			return; // Not fully written, and not written to since
+		}
+		Pending queued = pending.get(file);
+		if (queued == null || !queued.stamp.equals(stamp)) {
+			long now = System.nanoTime();
+			pending.put(file, new Pending(stamp, isSettled(file) ? now - TimeUnit.MILLISECONDS.toNanos(debounce) : now));
+		}
+	}
+	
+	/**
+	 * Returns true if file was last modified at least the debounce time ago, such as a log that was already in the
+	 * directory or was moved into it, so that it need not be watched for that long again.
+	 */
+	private boolean isSettled(File file) {
+		return System.currentTimeMillis() - file.lastModified() >= debounce;
+	}
+	
+	/**
+	 * Returns the size and last modified time of a file, which change while the file is written.
+	 */
+	private static String stamp(File file) {
+		return file.length() + "/" + file.lastModified();
+	}
+	
+	/**
+	 * Removes the pending logs that have stayed unchanged for the debounce time and returns them. A log that has changed
+	 * since it was queued waits for another debounce time, and a log that is gone is forgotten.
+	 */
+	private List<File> settledLogs() {
+		List<File> logs = new ArrayList<File>();
+		long now = System.nanoTime();
+		for (Iterator<Map.Entry<File, Pending>> i = pending.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<File, Pending> e = i.next();
+			File file = e.getKey();
+			String stamp = stamp(file);
+			if (!file.isFile()) {
+				i.remove();
+			} else if (!stamp.equals(e.getValue().stamp)) {
+				e.setValue(new Pending(stamp, now));
+			} else if (now - e.getValue().since >= TimeUnit.MILLISECONDS.toNanos(debounce)) {
+				logs.add(file);
+				i.remove();
+			}
+		}
+		return logs;
+	}
+	
+	/**
+	 * Extracts the pending logs that have settled, adds them to the aggregate and regenerates the report.
+	 * Logs that cannot be read yet or are not fully written stay out of the aggregate, and out of the cache, until they
+	 * are written to again.
+	 */
+	private void update() throws IOException {
+		List<File> ready = settledLogs();
+		if (ready.isEmpty()) {
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		File[] logs = ready.toArray(new File[0]);
+		String[] stamps = new String[logs.length];
+		for (int i = 0; i < logs.length; i++) {
+			stamps[i] = stamp(logs[i]); // Before reading, so a log that changes meanwhile is not taken as unfinished for good
+		}
+		
+		LogRecord[][] records = engine.extractReadable(logs);
+		long stageStart = System.nanoTime();
+		int added = 0;
+		for (int i = 0; i < logs.length; i++) {
+			if (records[i] == null) {
+				unfinished.put(logs[i].getName(), stamps[i]);
+				continue;
+			}
+			for (LogRecord record : records[i]) {
+				if (record.corrupt) {
+					Analyze.quarantine(quarantine, record.name, record.defect);
+				}
+				aggregate.add(record);
+				store.add(record);
+				added++;
+			}
+			processed.add(logs[i].getName()); // A .zip archive is processed as a whole
+			unfinished.remove(logs[i].getName());
+		}
+		stageStart = metrics.stage(PipelineMetrics.STATS, stageStart);
+		if (cache != null) {
+			cache.save();
+		}
+		if (added == 0) {
+			return;
+		}
+		
+		stageStart = System.nanoTime();
+		store.flush(); // A block per update, so queries see the new logs
+		ReportWriter.write(aggregate, quarantine, report);
+		metrics.stage(PipelineMetrics.WRITE, stageStart);
+		metrics.writeSummary(Analyze.summaryFile(inputDirectory));
+		long totalTime = System.currentTimeMillis() - startTime;
+		System.out.println("Added " + added + " logs in " + totalTime + " ms, " + aggregate.getLogs() + " logs in " + report.getName());
+	}
+	
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+	
+	/**
+	 * A log waiting to stay unchanged for the debounce time.
+	 */
+	private static class Pending {
+		final String stamp; // See stamp
+		final long since; // System.nanoTime() when the log was last seen to change
+		
+		Pending(String stamp, long since) {
+			this.stamp = stamp;
+			this.since = since;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package radioanalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed table of markers in one linear pass over a log.
+ * The automaton is built once and is immutable, so it can scan logs on any number of threads at the same time.
+ * Bytes are mapped to the few character classes that occur in the markers, which keeps the transition table small.
+ * @author abhi
+ */
+public class MarkerAutomaton {
+	private static final int CHUNK = 16 * 1024; // Bytes copied out of the buffer at a time
+	
+	private final String[] markers;
+	private final int[] classOf = new int[256]; // Character class of each byte, 0 for bytes in none of the markers
+	private final int classes;
+	private final int[] next; // Transition table, [state * classes + class]
+	private final int[] match; // Marker ending at each state, or -1
+	private final int[] dictionaryLink; // Nearest proper suffix state with a match, or 0
+	private final boolean[] output; // match or dictionaryLink is set
+	private final boolean[] starts = new boolean[256]; // Bytes that leave the root state
+	
+	/**
+	 * @param markers: Distinct non-empty ASCII markers, identified by their index in the table
+	 */
+	public MarkerAutomaton(String[] markers) {
+		this.markers = markers.clone();
+		int numClasses = 1;
+		int maxStates = 1;
+		for (String marker : markers) {
+			if (marker.isEmpty()) {
+				throw new IllegalArgumentException("Empty marker");
+			}
+			for (int i = 0; i < marker.length(); i++) {
+				int c = marker.charAt(i);
+				if (c > 0x7F) {
+					throw new IllegalArgumentException("Marker is not ASCII: " + marker);
+				}
+				if (classOf[c] == 0) {
+					classOf[c] = numClasses++;
+				}
+			}
+			starts[marker.charAt(0)] = true;
+			maxStates += marker.length();
+		}
+		classes = numClasses;
+		
+		// Trie of the markers
+		int[] trie = new int[maxStates * classes];
+		int[] ends = new int[maxStates];
+		Arrays.fill(ends, -1);
+		int states = 1;
+		for (int m = 0; m < markers.length; m++) {
+			int state = 0;
+			for (int i = 0; i < markers[m].length(); i++) {
+				int t = state * classes + classOf[markers[m].charAt(i)];
+				if (trie[t] == 0) {
+					trie[t] = states++;
+				}
+				state = trie[t];
+			}
+			if (ends[state] >= 0) {
+				throw new IllegalArgumentException("Duplicate marker: " + markers[m]);
+			}
+			ends[state] = m;
+		}
+		
+		// Breadth-first over the trie, completing the transitions with the failure links
+		next = Arrays.copyOf(trie, states * classes);
+		match = Arrays.copyOf(ends, states);
+		dictionaryLink = new int[states];
+		output = new boolean[states];
+		int[] fail = new int[states];
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		for (int c = 0; c < classes; c++) {
+			if (next[c] != 0) {
+				queue.add(next[c]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			int f = fail[state];
+			dictionaryLink[state] = match[f] >= 0 ? f : dictionaryLink[f];
+			output[state] = match[state] >= 0 || dictionaryLink[state] != 0;
+			for (int c = 0; c < classes; c++) {
+				int t = state * classes + c;
+				if (next[t] != 0) {
+					fail[next[t]] = next[f * classes + c];
+					queue.add(next[t]);
+				} else {
+					next[t] = next[f * classes + c];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of markers in the table.
+	 */
+	public int size() {
+		return markers.length;
+	}
+	
+	/**
+	 * Returns marker number m of the table.
+	 */
+	public String marker(int m) {
+		return markers[m];
+	}
+	
+	/**
+	 * Returns the number of marker in the table.
+	 * @throws IllegalArgumentException if the marker is not in the table
+	 */
+	public int indexOf(String marker) {
+		for (int m = 0; m < markers.length; m++) {
+			if (markers[m].equals(marker)) {
+				return m;
+			}
+		}
+		throw new IllegalArgumentException("Not a marker: " + marker);
+	}
+	
+	/**
+	 * Finds every occurrence of every marker in [from, to) of buf, including overlapping ones.
+	 * @return MarkerIndex of the occurrences, which answers indexOf for any view of that range
+	 */
+	public MarkerIndex scan(ByteBuffer buf, int from, int to) {
+		int[][] positions = new int[markers.length][16];
+		int[] counts = new int[markers.length];
+		byte[] chunk = new byte[Math.min(CHUNK, to - from)]; // Bulk copies are much faster than reading the buffer a byte at a time
+		int state = 0;
+		for (int base = from; base < to; base += chunk.length) {
+			int length = Math.min(chunk.length, to - base);
+			buf.get(base, chunk, 0, length);
+			for (int j = 0; j < length; j++) {
+				if (state == 0) {
+					// Most of a log is outside of any marker, skip to the next byte that can start one
+					while (j < length && !starts[chunk[j] & 0xFF]) {
+						j++;
+					}
+					if (j == length) {
+						break;
+					}
+				}
+				state = next[state * classes + classOf[chunk[j] & 0xFF]];
+				if (output[state]) {
+					for (int s = match[state] >= 0 ? state : dictionaryLink[state]; s != 0; s = dictionaryLink[s]) {
+						int m = match[s];
+						if (counts[m] == positions[m].length) {
+							positions[m] = Arrays.copyOf(positions[m], counts[m] * 2);
+						}
+						positions[m][counts[m]++] = base + j - markers[m].length() + 1; // Start of the occurrence
+					}
+				}
+			}
+		}
+		for (int m = 0; m < markers.length; m++) {
+			positions[m] = Arrays.copyOf(positions[m], counts[m]);
+		}
+		return new MarkerIndex(this, buf, from, to, positions);
+	}
+}
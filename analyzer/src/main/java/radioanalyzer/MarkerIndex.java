@@ -0,0 +1,88 @@
+package radioanalyzer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Every occurrence of the markers of a MarkerAutomaton in a range of a log, as an ordered stream of start positions per marker.
+ * Looking up the next occurrence of a marker is a binary search, so the log is never scanned again.
+ * @author abhi
+ */
+public class MarkerIndex {
+	private final MarkerAutomaton automaton;
+	private final ByteBuffer buf;
+	private final int from; // Absolute start of the scanned range
+	private final int to; // Absolute end of the scanned range
+	private final int[][] positions; // Absolute start of every occurrence of each marker, in increasing order
+	
+	MarkerIndex(MarkerAutomaton automaton, ByteBuffer buf, int from, int to, int[][] positions) {
+		this.automaton = automaton;
+		this.buf = buf;
+		this.from = from;
+		this.to = to;
+		this.positions = positions;
+	}
+	
+	/**
+	 * Returns the scanned range as a view.
+	 */
+	public LogSection text() {
+		return new LogSection(buf, from, to);
+	}
+	
+	/**
+	 * Returns the number of bytes of the log that were read, which may extend past the scanned range.
+	 */
+	public int bytesRead() {
+		return buf.limit();
+	}
+	
+	/**
+	 * Returns the number of occurrences of marker m.
+	 */
+	public int count(int m) {
+		return positions[m].length;
+	}
+	
+	/**
+	 * Returns the absolute position of occurrence k of marker m.
+	 */
+	public int position(int m, int k) {
+		return positions[m][k];
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of marker m in view at or after fromIndex, or -1 if there is none.
+	 * Same as view.indexOf(marker, fromIndex) for a view of the scanned range.
+	 */
+	public int indexOf(int m, LogSection view, int fromIndex) {
+		return indexOf(m, view, fromIndex, view.length());
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of marker m in [fromIndex, toIndex) of view, or -1 if there is none.
+	 * Same as indexOf(m, view.subSequence(fromIndex, toIndex)) plus fromIndex, without creating the subsequence.
+	 */
+	public int indexOf(int m, LogSection view, int fromIndex, int toIndex) {
+		int start = view.absoluteStart();
+		if (start < from || view.absoluteEnd() > to) {
+			throw new IllegalArgumentException("View is outside of the scanned range");
+		}
+		int[] occurrences = positions[m];
+		int k = Arrays.binarySearch(occurrences, start + Math.max(fromIndex, 0));
+		if (k < 0) {
+			k = -k - 1; // Insertion point, the first occurrence after
+		}
+		if (k == occurrences.length || occurrences[k] + automaton.marker(m).length() > start + Math.min(toIndex, view.length())) {
+			return -1;
+		}
+		return occurrences[k] - start;
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of marker m in view, or -1 if there is none.
+	 */
+	public int indexOf(int m, LogSection view) {
+		return indexOf(m, view, 0);
+	}
+}
@@ -0,0 +1,242 @@
+package radioanalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-stage timers and counters of a run, updated concurrently by the extraction tasks.
+ * The condense, power and LNA stages are summed over every thread, the other stages are wall time.
+ * The metrics are exposed through JMX while the run is in progress and written as a JSON run summary at the end.
+ * @author abhi
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+	public static final int LIST = 0; // Listing the input directory
+	public static final int CONDENSE = 1;
+	public static final int POWER = 2; // Tx Linearizer extraction
+	public static final int LNA = 3; // LNA Offset extraction
+	public static final int STATS = 4; // Aggregating the extracted values
+	public static final int WRITE = 5; // Writing the workbook
+	public static final int STAGES = 6;
+	private static final String[] STAGE_NAMES = {"list", "condense", "power", "lna", "stats", "write"};
+	
+	// Latency buckets double from 1 ms up to 32 s, the last bucket holds everything slower
+	private static final int BUCKETS = 17;
+	
+	private static final String OBJECT_NAME = "radioanalyzer:type=PipelineMetrics";
+	
+	private final long startTime = System.nanoTime();
+	private final LongAdder[] stageNanos = new LongAdder[STAGES];
+	private final LongAdder logs = new LongAdder(); // Extracted and cached
+	private final LongAdder cachedLogs = new LongAdder();
+	private final LongAdder corruptLogs = new LongAdder(); // Quarantined, see LogRecord.defect
+	private final LongAdder bytesRead = new LongAdder();
+	private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+	
+	public PipelineMetrics() {
+		for (int s = 0; s < STAGES; s++) {
+			stageNanos[s] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Adds the time since start to stage.
+	 * @return the current System.nanoTime(), the start of the next stage.
+	 */
+	public long stage(int stage, long start) {
+		long now = System.nanoTime();
+		stageNanos[stage].add(now - start);
+		return now;
+	}
+	
+	/**
+	 * Records a log that was condensed and extracted.
+	 * @param bytes: Size of the log
+	 * @param condense, power, lna: Nanoseconds spent in each stage
+	 */
+	public void logExtracted(long bytes, long condense, long power, long lna, boolean corrupt) {
+		stageNanos[CONDENSE].add(condense);
+		stageNanos[POWER].add(power);
+		stageNanos[LNA].add(lna);
+		bytesRead.add(bytes);
+		logs.increment();
+		if (corrupt) {
+			corruptLogs.increment();
+		}
+		
+		long millis = (condense + power + lna) / 1000000;
+		int bucket = millis <= 1 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis - 1)); // Smallest b with millis <= 2^b
+		latency.incrementAndGet(bucket);
+	}
+	
+	/**
+	 * Records a log whose values were found in the extraction cache.
+	 */
+	public void logCached(boolean corrupt) {
+		logs.increment();
+		cachedLogs.increment();
+		if (corrupt) {
+			corruptLogs.increment();
+		}
+	}
+	
+	/**
+	 * Writes the counters of the extraction, to be added to the metrics of another process with addExtraction.
+	 */
+	public void writeExtraction(DataOutputStream out) throws IOException {
+		out.writeLong(stageNanos[CONDENSE].sum());
+		out.writeLong(stageNanos[POWER].sum());
+		out.writeLong(stageNanos[LNA].sum());
+		out.writeLong(logs.sum());
+		out.writeLong(cachedLogs.sum());
+		out.writeLong(corruptLogs.sum());
+		out.writeLong(bytesRead.sum());
+		out.writeInt(BUCKETS);
+		for (int b = 0; b < BUCKETS; b++) {
+			out.writeLong(latency.get(b));
+		}
+	}
+	
+	/**
+	 * Adds counters written by writeExtraction, such as those of a shard extracted by another process.
+	 */
+	public void addExtraction(DataInputStream in) throws IOException {
+		stageNanos[CONDENSE].add(in.readLong());
+		stageNanos[POWER].add(in.readLong());
+		stageNanos[LNA].add(in.readLong());
+		logs.add(in.readLong());
+		cachedLogs.add(in.readLong());
+		corruptLogs.add(in.readLong());
+		bytesRead.add(in.readLong());
+		int buckets = in.readInt();
+		for (int b = 0; b < buckets; b++) {
+			latency.addAndGet(Math.min(b, BUCKETS - 1), in.readLong());
+		}
+	}
+	
+	/**
+	 * Registers these metrics with the platform MBean server, replacing the metrics of an earlier run.
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+		} catch (JMException e) {
+			System.out.println("Metrics are not available through JMX: " + e.getMessage());
+		}
+	}
+	
+	@Override
+	public long getLogs() {
+		return logs.sum();
+	}
+	
+	@Override
+	public long getCachedLogs() {
+		return cachedLogs.sum();
+	}
+	
+	@Override
+	public long getCorruptLogs() {
+		return corruptLogs.sum();
+	}
+	
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+	
+	@Override
+	public long getElapsedMillis() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+	
+	@Override
+	public double getLogsPerSecond() {
+		return getLogs() / seconds();
+	}
+	
+	@Override
+	public double getMegabytesPerSecond() {
+		return getBytesRead() / (1024.0 * 1024.0) / seconds();
+	}
+	
+	@Override
+	public Map<String, Long> getStageMillis() {
+		Map<String, Long> millis = new LinkedHashMap<String, Long>();
+		for (int s = 0; s < STAGES; s++) {
+			millis.put(STAGE_NAMES[s], stageNanos[s].sum() / 1000000);
+		}
+		return millis;
+	}
+	
+	@Override
+	public Map<String, Long> getLatencyHistogram() {
+		Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+		for (int b = 0; b < BUCKETS; b++) {
+			histogram.put(b == BUCKETS - 1 ? "inf" : Long.toString(1L << b), latency.get(b));
+		}
+		return histogram;
+	}
+	
+	/**
+	 * Writes the metrics as a JSON object to file.
+	 */
+	public void writeSummary(File file) throws IOException {
+		try (Writer out = new FileWriter(file)) {
+			out.write(toJson());
+		}
+	}
+	
+	/**
+	 * @return the metrics as a JSON object.
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"logs\": ").append(getLogs()).append(",\n");
+		json.append("  \"cachedLogs\": ").append(getCachedLogs()).append(",\n");
+		json.append("  \"corruptLogs\": ").append(getCorruptLogs()).append(",\n");
+		json.append("  \"bytesRead\": ").append(getBytesRead()).append(",\n");
+		json.append("  \"elapsedMillis\": ").append(getElapsedMillis()).append(",\n");
+		json.append("  \"logsPerSecond\": ").append(String.format(Locale.ROOT, "%.2f", getLogsPerSecond())).append(",\n");
+		json.append("  \"megabytesPerSecond\": ").append(String.format(Locale.ROOT, "%.2f", getMegabytesPerSecond())).append(",\n");
+		json.append("  \"stageMillis\": ");
+		appendObject(json, getStageMillis());
+		json.append(",\n  \"latencyHistogramMillis\": ");
+		appendObject(json, getLatencyHistogram());
+		json.append("\n}\n");
+		return json.toString();
+	}
+	
+	private static void appendObject(StringBuilder json, Map<String, Long> values) {
+		json.append("{");
+		String separator = "";
+		for (Map.Entry<String, Long> e : values.entrySet()) {
+			json.append(separator).append('"').append(e.getKey()).append("\": ").append(e.getValue());
+			separator = ", ";
+		}
+		json.append("}");
+	}
+	
+	private double seconds() {
+		return Math.max(1, System.nanoTime() - startTime) / 1e9;
+	}
+}
@@ -0,0 +1,33 @@
+package radioanalyzer;
+
+import java.util.Map;
+
+/**
+ * Management interface of PipelineMetrics, registered as radioanalyzer:type=PipelineMetrics.
+ * @author abhi
+ */
+public interface PipelineMetricsMXBean {
+	long getLogs();
+	
+	long getCachedLogs();
+	
+	long getCorruptLogs();
+	
+	long getBytesRead();
+	
+	long getElapsedMillis();
+	
+	double getLogsPerSecond();
+	
+	double getMegabytesPerSecond();
+	
+	/**
+	 * Milliseconds spent in each stage, by stage name.
+	 */
+	Map<String, Long> getStageMillis();
+	
+	/**
+	 * Number of extracted logs by latency bucket, by the upper bound of the bucket in milliseconds.
+	 */
+	Map<String, Long> getLatencyHistogram();
+}
@@ -0,0 +1,201 @@
+package radioanalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Bounded-memory, mergeable sketch of a series for the median and other quantiles.
+ * The sketch is a stack of compactors of capacity k: when a level fills up it is sorted and every other value is promoted to the
+ * next level with twice the weight. Up to k values nothing is compacted, so small series get the exact median, the same as
+ * Analyze.findMedian. Beyond that the rank error stays within about log2(n / k) / k and memory within k * log2(n / k) values.
+ * @author abhi
+ */
+public class QuantileSketch {
+	public static final int DEFAULT_K = 4096;
+	
+	private final int k; // Capacity of each level, even
+	private double[][] levels = new double[1][]; // Values of each level, level i having a weight of 2^i
+	private int[] sizes = new int[1]; // Number of values in each level
+	private boolean[] odd = new boolean[1]; // Which half of each level was promoted last time, alternated to cancel out the bias
+	private long count = 0;
+	
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+	
+	public QuantileSketch(int k) {
+		if (k < 2 || k % 2 != 0) {
+			throw new IllegalArgumentException("k must be an even number of at least 2: " + k);
+		}
+		this.k = k;
+	}
+	
+	/**
+	 * Adds a value to the series.
+	 */
+	public void add(double value) {
+		insert(0, value);
+		count++;
+	}
+	
+	/**
+	 * Adds all the values of other to this sketch. other is not changed.
+	 */
+	public void merge(QuantileSketch other) {
+		for (int level = 0; level < other.levels.length; level++) {
+			for (int i = 0; i < other.sizes[level]; i++) {
+				insert(level, other.levels[level][i]);
+			}
+		}
+		count += other.count;
+	}
+	
+	/**
+	 * Writes the sketch to out, to be read back with read, for example in another process.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(k);
+		out.writeLong(count);
+		out.writeInt(levels.length);
+		for (int level = 0; level < levels.length; level++) {
+			out.writeBoolean(odd[level]);
+			out.writeInt(sizes[level]);
+			for (int i = 0; i < sizes[level]; i++) {
+				out.writeDouble(levels[level][i]);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a sketch written by write.
+	 */
+	public static QuantileSketch read(DataInputStream in) throws IOException {
+		QuantileSketch sketch = new QuantileSketch(in.readInt());
+		sketch.count = in.readLong();
+		int length = in.readInt();
+		sketch.levels = new double[length][];
+		sketch.sizes = new int[length];
+		sketch.odd = new boolean[length];
+		for (int level = 0; level < length; level++) {
+			sketch.odd[level] = in.readBoolean();
+			sketch.sizes[level] = in.readInt();
+			if (sketch.sizes[level] >= sketch.k) {
+				throw new IOException("Corrupt quantile sketch");
+			}
+			if (sketch.sizes[level] > 0) {
+				sketch.levels[level] = new double[sketch.k];
+			}
+			for (int i = 0; i < sketch.sizes[level]; i++) {
+				sketch.levels[level][i] = in.readDouble();
+			}
+		}
+		return sketch;
+	}
+	
+	/**
+	 * Returns the number of values added.
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Returns true while every value is still held, in which case the quantiles are exact.
+	 */
+	public boolean isExact() {
+		return levels.length == 1;
+	}
+	
+	/**
+	 * Returns the median, averaging the two middle values of an even number of values like Analyze.findMedian.
+	 */
+	public double median() {
+		if (count == 0) {
+			throw new IllegalStateException("No values");
+		}
+		if (isExact()) {
+			double[] nums = Arrays.copyOf(levels[0], sizes[0]);
+			Arrays.sort(nums);
+			if (nums.length % 2 == 0) {
+				return (nums[nums.length / 2 - 1] + nums[nums.length / 2]) / 2;
+			}
+			return nums[nums.length / 2];
+		}
+		return quantile(0.5);
+	}
+	
+	/**
+	 * Returns the value at fraction q (0 to 1) of the sorted series, such as 0.9 for the 90th percentile.
+	 */
+	public double quantile(double q) {
+		if (count == 0) {
+			throw new IllegalStateException("No values");
+		}
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("q must be between 0 and 1: " + q);
+		}
+		
+		// Sorts the retained values along with their weights
+		int retained = 0;
+		for (int size : sizes) {
+			retained += size;
+		}
+		double[] values = new double[retained];
+		long[] weights = new long[retained];
+		int n = 0;
+		for (int level = 0; level < levels.length; level++) {
+			for (int i = 0; i < sizes[level]; i++) {
+				values[n] = levels[level][i];
+				weights[n] = 1L << level;
+				n++;
+			}
+		}
+		Integer[] order = new Integer[retained];
+		for (int i = 0; i < retained; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+		
+		// First value whose cumulative weight passes the target rank
+		long rank = (long) Math.floor(q * (count - 1));
+		long cumulative = 0;
+		for (int i : order) {
+			cumulative += weights[i];
+			if (cumulative > rank) {
+				return values[i];
+			}
+		}
+		return values[order[retained - 1]];
+	}
+	
+	private void insert(int level, double value) {
+		if (level >= levels.length) { // Merging a bigger sketch can skip levels
+			levels = Arrays.copyOf(levels, level + 1);
+			sizes = Arrays.copyOf(sizes, level + 1);
+			odd = Arrays.copyOf(odd, level + 1);
+		}
+		if (levels[level] == null) {
+			levels[level] = new double[k];
+		}
+		levels[level][sizes[level]++] = value;
+		if (sizes[level] == k) {
+			compact(level);
+		}
+	}
+	
+	/**
+	 * Promotes every other value of a full level to the next level.
+	 */
+	private void compact(int level) {
+		double[] full = levels[level];
+		Arrays.sort(full);
+		sizes[level] = 0; // Promoting only ever inserts into higher levels, so full is left alone until this returns
+		int offset = odd[level] ? 1 : 0;
+		odd[level] = !odd[level];
+		for (int i = offset; i < k; i += 2) {
+			insert(level + 1, full[i]);
+		}
+	}
+}
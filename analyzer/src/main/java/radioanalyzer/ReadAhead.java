@@ -0,0 +1,322 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ingestion stage of ExtractionEngine: reads the upcoming logs ahead with AsynchronousFileChannel into a pool of reusable
+ * direct buffers, and hands them to the extraction threads through a bounded queue, so that the disk is reading the next logs
+ * while the threads parse the current ones.
+ * A read only starts once a buffer is free and fits in the byte budget of the pool, and a buffer is only freed once its log
+ * has been extracted, so reading never gets more than the pool ahead of the extraction however slow it is. Logs that are in
+ * the cache, compressed, in a .zip archive or larger than MAX_BUFFER are queued without being read, and left to the
+ * extraction threads as before.
+ * @author abhi
+ */
+public class ReadAhead {
+	public static final int MAX_BUFFER = 16 * 1024 * 1024; // Larger logs are memory-mapped by the extraction thread instead
+	private static final int MIN_BUFFER = 64 * 1024;
+	
+	private final File[] logs;
+	private final ExtractionCache cache; // null when caching is disabled
+	private final BufferPool buffers;
+	private final Semaphore unread; // Room in the queue for logs that are not read ahead, so that they cannot fill it
+	private final BlockingQueue<Log> queue; // Logs ready for extraction, in the order their reads finish
+	private final int consumers; // Threads taking logs, each stopped by an END
+	private int reading = 0; // Reads in progress, guarded by this
+	private volatile boolean cancelled = false;
+	
+	private static final Log END = new Log(-1, null, 0, 0, null, false);
+	
+	/**
+	 * @param cache: Values of previously extracted logs, which are not read again, or null
+	 * @param buffers: Buffers the logs are read into, which bounds how far reading gets ahead
+	 * @param consumers: Number of threads that will take the logs
+	 */
+	public ReadAhead(File[] logs, ExtractionCache cache, BufferPool buffers, int consumers) {
+		this.logs = logs;
+		this.cache = cache;
+		this.buffers = buffers;
+		this.consumers = consumers;
+		unread = new Semaphore(buffers.size());
+		queue = new ArrayBlockingQueue<Log>(2 * buffers.size() + consumers); // Never full: logs read ahead are bounded by the buffers, the rest by unread
+	}
+	
+	/**
+	 * Starts reading the logs on a thread of its own.
+	 */
+	public void start() {
+		Thread producer = new Thread(this::produce, "radioanalyzer-read-ahead");
+		producer.setDaemon(true);
+		producer.start();
+	}
+	
+	/**
+	 * Returns the next log ready for extraction, waiting for one if needed, or null once every log has been handed out.
+	 * Each log must be given back with release once it has been extracted.
+	 * A thread of a ForkJoinPool waits as a managed block, so the pool can start another thread meanwhile to run the tasks
+	 * forked by the other threads, such as the entries of a .zip archive.
+	 */
+	public Log take() throws InterruptedException {
+		Taker taker = new Taker();
+		ForkJoinPool.managedBlock(taker);
+		Log log = taker.log;
+		if (log == END) {
+			return null;
+		}
+		if (!log.readAhead) {
+			unread.release();
+		}
+		return log;
+	}
+	
+	/**
+	 * Returns the buffer of an extracted log to the pool, so the next log can be read into it.
+	 */
+	public void release(Log log) {
+		if (log.buffer != null) {
+			buffers.release(log.buffer);
+			log.buffer = null;
+		}
+	}
+	
+	/**
+	 * Stops reading logs, for example after one failed. The logs already read are still handed out.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	private void produce() {
+		try {
+			for (int i = 0; i < logs.length && !cancelled; i++) {
+				File file = logs[i];
+				boolean zip = ExtractionEngine.isZip(file);
+				LogRecord cached = cache == null || zip ? null : cache.get(file);
+				BasicFileAttributes attributes = null;
+				if (cached == null && !zip && !LogCondenser.isGzip(file.getName())) {
+					try {
+						attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+					} catch (IOException e) {
+						// Left to the extraction thread, which reports the log as unreadable
+					}
+				}
+				if (attributes == null || !attributes.isRegularFile() || attributes.size() > MAX_BUFFER) {
+					unread.acquire();
+					queue.add(new Log(i, file, 0, 0, cached, false));
+				} else {
+					read(new Log(i, file, attributes.size(), attributes.lastModifiedTime().toMillis(), null, true), buffers.acquire((int) attributes.size()));
+				}
+			}
+			synchronized (this) {
+				while (reading > 0) {
+					wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			for (int i = 0; i < consumers; i++) {
+				queue.add(END);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a whole log into buffer, then queues it.
+	 */
+	private void read(Log log, ByteBuffer buffer) {
+		AsynchronousFileChannel channel;
+		try {
+			channel = AsynchronousFileChannel.open(log.file.toPath(), StandardOpenOption.READ);
+		} catch (IOException e) {
+			log.buffer = buffer;
+			log.error = e;
+			queue.add(log);
+			return;
+		}
+		synchronized (this) {
+			reading++;
+		}
+		channel.read(buffer, 0, log, new CompletionHandler<Integer, Log>() {
+			@Override
+			public void completed(Integer read, Log log) {
+				if (read >= 0 && buffer.hasRemaining()) {
+					channel.read(buffer, buffer.position(), log, this); // A read can stop short of the buffer
+				} else {
+					finish(channel, log, buffer, null);
+				}
+			}
+			
+			@Override
+			public void failed(Throwable e, Log log) {
+				finish(channel, log, buffer, e instanceof IOException ? (IOException) e : new IOException(e));
+			}
+		});
+	}
+	
+	private void finish(AsynchronousFileChannel channel, Log log, ByteBuffer buffer, IOException error) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Everything was read already
+		}
+		buffer.flip();
+		log.buffer = buffer; // Held until released even if the read failed, so the reads in the queue never outnumber the buffers
+		log.error = error;
+		queue.add(log);
+		synchronized (this) {
+			reading--;
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Waits for the next log in the queue.
+	 */
+	private class Taker implements ForkJoinPool.ManagedBlocker {
+		private Log log; // null until taken
+		
+		@Override
+		public boolean block() throws InterruptedException {
+			if (log == null) {
+				log = queue.take();
+			}
+			return true;
+		}
+		
+		@Override
+		public boolean isReleasable() {
+			return log != null || (log = queue.poll()) != null;
+		}
+	}
+	
+	/**
+	 * A log handed to the extraction threads.
+	 */
+	public static class Log {
+		public final int index; // Of the log in logs
+		public final File file;
+		public final long size; // Size of the log before it was read, 0 when it was not read ahead
+		public final long modified; // Time the log was last modified before it was read, 0 when it was not read ahead
+		public final LogRecord cached; // Values of the log from the cache, or null
+		private final boolean readAhead; // Holds a buffer of the pool until released
+		private ByteBuffer buffer; // Contents of the log, null when it was not read ahead or has been released
+		private IOException error; // Why the log could not be read, or null
+		
+		Log(int index, File file, long size, long modified, LogRecord cached, boolean readAhead) {
+			this.index = index;
+			this.file = file;
+			this.size = size;
+			this.modified = modified;
+			this.cached = cached;
+			this.readAhead = readAhead;
+		}
+		
+		/**
+		 * Returns the contents of the log, or null if it was not read ahead and is left to the extraction thread.
+		 * @throws IOException if the log could not be read
+		 */
+		public ByteBuffer contents() throws IOException {
+			if (error != null) {
+				throw error;
+			}
+			return buffer;
+		}
+	}
+	
+	/**
+	 * Fixed number of direct buffers the logs are read into, holding at most maxBytes between them. A buffer too small for
+	 * a log is replaced by a bigger one, so the buffers grow to the size of the logs and are then reused from one log and one
+	 * run to the next. Free buffers too small for a log are dropped to make room for it in the budget.
+	 */
+	public static class BufferPool {
+		private final int size;
+		private final long maxBytes;
+		private final List<ByteBuffer> free = new ArrayList<ByteBuffer>(); // Released buffers, guarded by this
+		private int unallocated; // Free slots without a buffer, guarded by this
+		private long allocated = 0; // Capacity of every buffer, free or in use, guarded by this
+		
+		/**
+		 * @param size: Number of buffers, which bounds the number of logs read ahead
+		 * @param maxBytes: Most bytes the buffers may hold between them, at least MAX_BUFFER
+		 */
+		public BufferPool(int size, long maxBytes) {
+			if (maxBytes < MAX_BUFFER) {
+				throw new IllegalArgumentException("maxBytes must be at least " + MAX_BUFFER);
+			}
+			this.size = size;
+			this.maxBytes = maxBytes;
+			unallocated = size;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * Returns a free buffer with a limit of bytes, waiting until buffers are released if none is free or a big enough one
+		 * would not fit in the budget.
+		 */
+		synchronized ByteBuffer acquire(int bytes) throws InterruptedException {
+			while (true) {
+				int best = -1; // Smallest free buffer the log fits in
+				for (int i = 0; i < free.size(); i++) {
+					if (free.get(i).capacity() >= bytes && (best < 0 || free.get(i).capacity() < free.get(best).capacity())) {
+						best = i;
+					}
+				}
+				if (best >= 0) {
+					ByteBuffer buffer = free.remove(best);
+					buffer.clear().limit(bytes);
+					return buffer;
+				}
+				
+				int capacity = Math.max(MIN_BUFFER, Math.min(Integer.highestOneBit(bytes - 1) << 1, MAX_BUFFER));
+				if (unallocated == 0 && !free.isEmpty()) {
+					drop(); // Every free buffer is too small, so its slot is given a bigger one
+				}
+				while (allocated + capacity > maxBytes && !free.isEmpty()) {
+					drop();
+				}
+				if (unallocated > 0 && allocated + capacity <= maxBytes) {
+					unallocated--;
+					allocated += capacity;
+					ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+					buffer.limit(bytes);
+					return buffer;
+				}
+				wait();
+			}
+		}
+		
+		private void drop() {
+			allocated -= free.remove(free.size() - 1).capacity();
+			unallocated++;
+		}
+		
+		synchronized void release(ByteBuffer buffer) {
+			free.add(buffer);
+			notifyAll();
+		}
+		
+		/**
+		 * Returns true if every buffer has been released.
+		 */
+		synchronized boolean isIdle() {
+			return free.size() + unallocated == size;
+		}
+	}
+}
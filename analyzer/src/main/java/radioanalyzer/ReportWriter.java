@@ -0,0 +1,643 @@
+package radioanalyzer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+// Apache POI API for writing to Excel
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Class to output the statistical analysis of the Linearizer and LNA Offset data to Excel.
+ * The workbook is streamed: only the last ROW_WINDOW rows of each sheet are kept in memory, the rest are flushed to a temporary file,
+ * so a report with a detail row for every log is written in constant memory.
+ * @author abhi
+ */
+public class ReportWriter implements Closeable {
+	public static final int ROW_WINDOW = 100; // Rows of each sheet kept in memory
+	private static final DateTimeFormatter BUCKET_START = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+	
+	private final File output; // null when writing to stream
+	private final OutputStream stream; // null when writing to output
+	private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+	private final SXSSFSheet sheet; // Statistics of every band
+	private SXSSFSheet details; // One row per log, created with the first log
+	private int detailRows = 0;
+	private SXSSFSheet quarantine; // One row per quarantined log, created with the first one
+	private int quarantineRows = 0;
+	
+	// Cell formatting, shared by every cell of the workbook
+	private final CellStyle style;
+	private final CellStyle center;
+	
+	public ReportWriter(File output) {
+		this(output, null);
+	}
+	
+	/**
+	 * Writes the workbook to stream instead of a file, such as the response of AnalysisServer. stream is not closed.
+	 */
+	public ReportWriter(OutputStream stream) {
+		this(null, stream);
+	}
+	
+	private ReportWriter(File output, OutputStream stream) {
+		this.output = output;
+		this.stream = stream;
+		sheet = workbook.createSheet(); // Created first so the statistics stay the first sheet
+		
+		style = workbook.createCellStyle();
+		style.setAlignment(HorizontalAlignment.LEFT);
+		
+		center = workbook.createCellStyle();
+		center.setAlignment(HorizontalAlignment.CENTER);
+	}
+	
+	/**
+	 * Writes the statistics of aggregate and the quarantined logs to output.
+	 * @param quarantine: Defect of each quarantined log by name, see LogRecord.defect
+	 */
+	public static void write(RunAggregate aggregate, Map<String, String> quarantine, File output) throws IOException {
+		try (ReportWriter writer = new ReportWriter(output)) {
+			writer.writeStats(aggregate);
+			writer.addQuarantined(quarantine);
+		}
+	}
+	
+	/**
+	 * Adds a row to the "Quarantine" sheet for each quarantined log, with the reason it was left out of the statistics.
+	 * @param quarantine: Defect of each quarantined log by name, see LogRecord.defect
+	 */
+	public void addQuarantined(Map<String, String> quarantine) {
+		for (Map.Entry<String, String> e : quarantine.entrySet()) {
+			if (this.quarantine == null) {
+				this.quarantine = workbook.createSheet("Quarantine");
+				SXSSFRow header = this.quarantine.createRow(quarantineRows++);
+				header.createCell(0).setCellValue("Log");
+				header.createCell(1).setCellValue("Reason");
+				this.quarantine.setColumnWidth(0, 7500);
+				this.quarantine.setColumnWidth(1, 15000);
+			}
+			SXSSFRow row = this.quarantine.createRow(quarantineRows++);
+			row.createCell(0).setCellValue(e.getKey());
+			row.createCell(1).setCellValue(e.getValue());
+		}
+	}
+	
+	/**
+	 * Adds a detail row with the Tx Linearizer data of a single log. Logs are written out as they are added.
+	 */
+	public void addLog(LogRecord record) {
+		String[] bands = {"B2", "B4", "B5", "B12", "B13", "B17"};
+		String[] series = {"Tx Max PA 3", "Tx Max PA 0", "APT Tx Max PA 3", "APT Tx Max PA 0", "Tx Min PA 3", "Tx Min PA 0", "APT Tx Min PA 3", "APT Tx Min PA 0"};
+		if (details == null) {
+			details = workbook.createSheet("Logs");
+			SXSSFRow header = details.createRow(detailRows++);
+			header.createCell(0).setCellValue("Log");
+			header.createCell(1).setCellValue("Quarantined");
+			int col = 2;
+			for (String band : bands) {
+				for (String name : series) {
+					header.createCell(col++).setCellValue(band + " " + name);
+				}
+			}
+			details.setColumnWidth(0, 7500);
+		}
+		
+		SXSSFRow row = details.createRow(detailRows++);
+		row.createCell(0).setCellValue(record.name);
+		row.createCell(1).setCellValue(record.corrupt ? record.defect : "");
+		int col = 2;
+		for (int k = 0; k < bands.length; k++) {
+			for (double value : record.maxPowers[k]) {
+				row.createCell(col++).setCellValue(value);
+			}
+			for (double value : record.minPowers[k]) {
+				row.createCell(col++).setCellValue(value);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the Min, Max, Mean, Median and Std. Dev. of every Tx Linearizer series and the average LNA Offsets.
+	 */
+	public void writeStats(RunAggregate aggregate) {
+		writeStats(aggregate, SectionFilter.ALL);
+	}
+	
+	/**
+	 * Writes the statistics of the data filter selects, like writeStats(aggregate). The statistics of the other data are
+	 * never computed, and the Trend sheet is only written when everything is selected.
+	 */
+	public void writeStats(RunAggregate aggregate, SectionFilter filter) {
+		writeStats(aggregate, filter, null);
+	}
+	
+	/**
+	 * Writes the statistics of the data filter selects like writeStats(aggregate, filter), each followed by its bootstrap
+	 * confidence interval.
+	 * @param intervals: Confidence intervals of the statistics, or null to write none
+	 */
+	public void writeStats(RunAggregate aggregate, SectionFilter filter, BootstrapCI intervals) {
+		String[] bands = {"B2", "B4", "B5", "B12", "B13", "B17"}; // ESC LTE bands
+		int[] rxLvls = {-61, -60, -50, -40, -40, -40};
+		int[] devices = {0, 2, 1, 3};
+		
+		// LNA Offset averages of B2, B4, B5-17 and B5-17 Diversity
+		int[][] b2lna = aggregate.lnaAverages(0);
+		int[][] b4lna = aggregate.lnaAverages(1);
+		int[][] nonPRXlna = new int[8][];
+		for (int k = 0; k < nonPRXlna.length; k++) {
+			nonPRXlna[k] = aggregate.lnaAverages(k + 2)[0];
+		}
+		
+		int rowCount = 0;
+		int colCount = 0;
+		
+		String[] stats = {"Min", "Max", "Mean", "Median", "Std. Dev."};
+		
+		// Outputting data to Excel
+		for (int i = 0; i < bands.length; i++) {
+			if (!filter.selects(i)) {
+				continue;
+			}
+			SXSSFRow row = sheet.createRow(rowCount);
+			row.createCell(colCount).setCellValue("ESC LTE " + bands[i]);
+			colCount = 2;
+			
+			// Creates the [Min, Max, Mean, Median, Std. Dev.] column headers
+			for (; colCount < stats.length + 2; colCount++) {
+				SXSSFCell cell = row.createCell(colCount);
+				cell.setCellStyle(style);
+				cell.setCellValue(stats[colCount - 2]);
+			}
+			if (intervals != null) {
+				String level = Math.round(intervals.getConfidence() * 100) + "% CI ";
+				for (String stat : new String[] {"Mean", "Median", "Std. Dev."}) {
+					row.createCell(colCount++).setCellValue(stat + " " + level + "Low");
+					row.createCell(colCount++).setCellValue(stat + " " + level + "High");
+				}
+			}
+			colCount = 0;
+			rowCount++;
+			
+			if (filter.tx(i)) {
+				//----------------------------------------------------------------
+				// Tx Linearizer Sweep Max Data
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("Tx Linearizer Sweep Max");
+				rowCount++;
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 3: Power");
+				colCount = 2;
+				double[] dataMax3 = aggregate.powerStats(i, RunAggregate.TX_MAX_3);
+				for (double d : dataMax3) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;
+				}
+				writeIntervals(row, intervals, i, RunAggregate.TX_MAX_3);
+				rowCount++;
+				colCount = 0;
+				
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 0: Power");
+				colCount = 2;
+				double[] dataMax0 = aggregate.powerStats(i, RunAggregate.TX_MAX_0);
+				for (double d : dataMax0) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;
+				}
+				writeIntervals(row, intervals, i, RunAggregate.TX_MAX_0);
+				rowCount += 2;
+				colCount = 0;
+				
+				//----------------------------------------------------------------
+				// Tx Linearizer Sweep Min Data
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("Tx Linearizer Sweep Min");
+				rowCount++;
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 3: Power");
+				colCount = 2;
+				double[] dataMin3 = aggregate.powerStats(i, RunAggregate.TX_MIN_3);
+				for (double d : dataMin3) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.TX_MIN_3);
+				rowCount++;
+				colCount = 0;
+				
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 0: Power");
+				colCount = 2;
+				double[] dataMin0 = aggregate.powerStats(i, RunAggregate.TX_MIN_0);
+				for (double d : dataMin0) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.TX_MIN_0);
+				rowCount += 2;
+				colCount = 0;
+				
+				//----------------------------------------------------------------
+				// APT Tx Linearizer Sweep Max Data
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("APT Tx Linearizer Sweep Max");
+				rowCount++;
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 3: Power");
+				colCount = 2;
+				double[] aptdataMax3 = aggregate.powerStats(i, RunAggregate.APT_MAX_3);
+				for (double d : aptdataMax3) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.APT_MAX_3);
+				rowCount++;
+				colCount = 0;
+				
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 0: Power");
+				colCount = 2;
+				double[] aptdataMax0 = aggregate.powerStats(i, RunAggregate.APT_MAX_0);
+				for (double d : aptdataMax0) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.APT_MAX_0);
+				rowCount += 2;
+				colCount = 0;
+				
+				//----------------------------------------------------------------
+				// APT Tx Linearizer Sweep Min Data
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("APT Tx Linearizer Sweep Min");
+				rowCount++;
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 3: Power");
+				colCount = 2;
+				double[] aptdataMin3 = aggregate.powerStats(i, RunAggregate.APT_MIN_3);
+				for (double d : aptdataMin3) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.APT_MIN_3);
+				rowCount++;
+				colCount = 0;
+				
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("PA State 0: Power");
+				colCount = 2;
+				double[] aptdataMin0 = aggregate.powerStats(i, RunAggregate.APT_MIN_0);
+				for (double d : aptdataMin0) {
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(style);
+					cell.setCellValue(d);
+					colCount++;	
+				}
+				writeIntervals(row, intervals, i, RunAggregate.APT_MIN_0);
+				rowCount += 2;
+				colCount = 0;
+			}
+			
+			if (filter.lna(i)) {
+				//----------------------------------------------------------------
+				// Outputting LNA Offset Data
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("LNA Offset Freq Comp");
+				rowCount++;
+			
+				// LTE B2
+				if (i == 0) {
+					for (int j = 0; j < b2lna.length; j++) {
+						row = sheet.createRow(rowCount);
+						row.createCell(colCount).setCellValue("RxFreqCompLNAOffset");
+						colCount++;
+						SXSSFCell cell = row.createCell(colCount);
+						cell.setCellStyle(center);
+						cell.setCellValue("Dev" + devices[j]);
+						writeLnaIntervalHeader(row, intervals);
+						rowCount++;
+						colCount = 0;
+			
+						for (int e = 0; e < b2lna[j].length; e++) {
+							row = sheet.createRow(rowCount);
+							row.createCell(colCount).setCellValue("RxLvl " + rxLvls[e]);
+							colCount++;
+							row.createCell(colCount).setCellValue(b2lna[j][e]);
+							writeLnaInterval(row, intervals, 0, j, e);
+							colCount = 0;
+							rowCount ++;
+						}
+						rowCount++;
+					}
+					rowCount ++;
+				}
+				// LTE B4
+				else if (i == 1) {
+					for (int j = 0; j < b4lna.length; j++) {
+						row = sheet.createRow(rowCount);
+						row.createCell(colCount).setCellValue("RxFreqCompLNAOffset");
+						colCount++;
+						SXSSFCell cell = row.createCell(colCount);
+						cell.setCellStyle(center);
+						cell.setCellValue("Dev" + devices[j]);
+						writeLnaIntervalHeader(row, intervals);
+						rowCount++;
+						colCount = 0;
+			
+						for (int e = 0; e < b4lna[j].length; e++) {
+							row = sheet.createRow(rowCount);
+							row.createCell(colCount).setCellValue("RxLvl " + rxLvls[e]);
+							colCount++;
+							row.createCell(colCount).setCellValue(b4lna[j][e]);
+							writeLnaInterval(row, intervals, 1, j, e);
+							colCount = 0;
+							rowCount ++;
+						}
+						rowCount++;
+					}
+					rowCount++;
+				}
+				// LTE B5-17
+				else {
+					row = sheet.createRow(rowCount);
+					row.createCell(colCount).setCellValue("RxFreqCompLNAOffset");
+					colCount++;
+					SXSSFCell cell = row.createCell(colCount);
+					cell.setCellStyle(center);
+					cell.setCellValue("Dev0");
+					writeLnaIntervalHeader(row, intervals);
+					rowCount++;
+					colCount = 0;
+					
+					for (int e = 0; e < nonPRXlna[i - 2].length; e++) {
+						row = sheet.createRow(rowCount);
+						row.createCell(colCount).setCellValue("RxLvl " + rxLvls[e]);
+						colCount++;
+						row.createCell(colCount).setCellValue(nonPRXlna[i - 2][e]);
+						writeLnaInterval(row, intervals, i, 0, e);
+						colCount = 0;
+						rowCount++;
+					}
+					rowCount += 2;
+				}
+			}
+		}
+		
+		String[] dbands = {"B5 Diversity", "B12 Diversity", "B13 Diversity", "B17 Diversity"};
+		
+		// Outputting LNA Offset for LTE B5-B17 Diversity
+		for (int i = 0; i < dbands.length; i++) {
+			if (!filter.lna(i + 6)) {
+				continue;
+			}
+			SXSSFRow row = sheet.createRow(rowCount);
+			row.createCell(colCount).setCellValue("ESC LTE " + dbands[i]);
+			rowCount++;
+			row = sheet.createRow(rowCount);
+			row.createCell(colCount).setCellValue("LNA Offset Freq Comp");
+			rowCount++;
+			row = sheet.createRow(rowCount);
+			row.createCell(colCount).setCellValue("RxFreqCompLNAOffset");
+			colCount++;
+			SXSSFCell cell = row.createCell(colCount);
+			cell.setCellStyle(center);
+			cell.setCellValue("Dev1");
+			writeLnaIntervalHeader(row, intervals);
+			rowCount++;
+			colCount = 0;
+			
+			for (int e = 0; e < nonPRXlna[i + 4].length; e++) {
+				row = sheet.createRow(rowCount);
+				row.createCell(colCount).setCellValue("RxLvl " + rxLvls[e]);
+				colCount++;
+				row.createCell(colCount).setCellValue(nonPRXlna[i + 4][e]); // [i + 4] because first 4 arrays are for regular LTE B5-B17
+				writeLnaInterval(row, intervals, i + 6, 0, e);
+				colCount = 0;
+				rowCount++;
+			}
+			rowCount += 2;
+		}
+		
+		// Excel formatting
+		sheet.setColumnWidth(0, 7500);
+		sheet.setColumnWidth(1, 2500);
+		for (int col = 2; col < 7; col++)
+			sheet.setColumnWidth(col, 2500);
+		if (intervals != null) {
+			for (int col = 7; col < 13; col++) {
+				sheet.setColumnWidth(col, 5500);
+			}
+		}
+		
+		if (filter.isAll() && !aggregate.getTrend().isEmpty()) {
+			writeTrend(aggregate.getTrend());
+		}
+	}
+	
+	/**
+	 * Writes the Mean, Median and Std. Dev. intervals of a Tx Linearizer series after its statistics, if there are intervals.
+	 */
+	private void writeIntervals(SXSSFRow row, BootstrapCI intervals, int band, int series) {
+		if (intervals == null) {
+			return;
+		}
+		int col = 7;
+		for (int stat : new int[] {BootstrapCI.MEAN, BootstrapCI.MEDIAN, BootstrapCI.STD_DEV}) {
+			for (double bound : intervals.powerInterval(band, series, stat)) {
+				SXSSFCell cell = row.createCell(col++);
+				cell.setCellStyle(style);
+				cell.setCellValue(bound);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the interval of an average LNA Offset after it, if there are intervals.
+	 */
+	private void writeLnaInterval(SXSSFRow row, BootstrapCI intervals, int set, int device, int rxLvl) {
+		if (intervals == null) {
+			return;
+		}
+		double[] interval = intervals.lnaInterval(set, device, rxLvl);
+		row.createCell(2).setCellValue(interval[0]);
+		row.createCell(3).setCellValue(interval[1]);
+	}
+	
+	private void writeLnaIntervalHeader(SXSSFRow row, BootstrapCI intervals) {
+		if (intervals != null) {
+			String level = Math.round(intervals.getConfidence() * 100) + "% CI ";
+			row.createCell(2).setCellValue(level + "Low");
+			row.createCell(3).setCellValue(level + "High");
+		}
+	}
+	
+	/**
+	 * Writes a "Trend" sheet with a row per time bucket: the mean of every series over the bucket, and the mean and
+	 * Std. Dev. over the sliding window ending with it, so drift shows as the rows go down.
+	 */
+	public void writeTrend(TrendStats trend) {
+		String[] bands = {"B2", "B4", "B5", "B12", "B13", "B17"};
+		String[] series = {"Tx Max PA 3", "Tx Max PA 0", "Tx Min PA 3", "Tx Min PA 0", "APT Tx Max PA 3", "APT Tx Max PA 0", "APT Tx Min PA 3", "APT Tx Min PA 0"}; // Indexed by the RunAggregate series
+		String[] lnaSets = {"B2", "B4", "B5", "B12", "B13", "B17", "B5 Diversity", "B12 Diversity", "B13 Diversity", "B17 Diversity"};
+		String[] names = new String[TrendStats.SERIES];
+		for (int k = 0; k < bands.length; k++) {
+			for (int s = 0; s < series.length; s++) {
+				names[TrendStats.series(k, s)] = bands[k] + " " + series[s];
+			}
+		}
+		for (int set = 0; set < lnaSets.length; set++) {
+			names[TrendStats.lnaSeries(set)] = lnaSets[set] + " LNA Offset";
+		}
+		
+		SXSSFSheet trendSheet = workbook.createSheet("Trend");
+		int rowCount = 0;
+		SXSSFRow header = trendSheet.createRow(rowCount++);
+		header.createCell(0).setCellValue("Bucket Start");
+		header.createCell(1).setCellValue("Logs");
+		header.createCell(2).setCellValue("Window Logs (" + trend.getWindow() + " x " + trend.getBucket() / 60000 + " min)");
+		int col = 3;
+		for (String name : names) {
+			header.createCell(col++).setCellValue(name + " Mean");
+			header.createCell(col++).setCellValue(name + " Window Mean");
+			header.createCell(col++).setCellValue(name + " Window Std. Dev.");
+		}
+		trendSheet.setColumnWidth(0, 4500);
+		
+		for (TrendStats.Point point : trend.points()) {
+			SXSSFRow row = trendSheet.createRow(rowCount++);
+			row.createCell(0).setCellValue(BUCKET_START.format(Instant.ofEpochMilli(point.start)));
+			row.createCell(1).setCellValue(point.logs);
+			row.createCell(2).setCellValue(point.windowLogs);
+			col = 3;
+			for (int s = 0; s < TrendStats.SERIES; s++) {
+				row.createCell(col++).setCellValue(point.mean(s));
+				row.createCell(col++).setCellValue(point.windowMean(s));
+				row.createCell(col++).setCellValue(point.windowStdDev(s));
+			}
+		}
+	}
+	
+	/**
+	 * Writes a "Compliance" sheet with the pass rate of each section and of every limit together, then a row per limit with
+	 * its pass rate and the histogram of its values: the logs below LOW, in each bin from LOW to HIGH, and above HIGH.
+	 * The logs that failed a limit follow on a "Limit Failures" sheet.
+	 * @param failures: First limit each failing log failed, by name
+	 */
+	public void writeCompliance(ComplianceTally tally, Map<String, String> failures) {
+		ComplianceLimits limits = tally.getLimits();
+		SXSSFSheet compliance = workbook.createSheet("Compliance");
+		int rowCount = 0;
+		SXSSFRow row = compliance.createRow(rowCount++);
+		row.createCell(0).setCellValue("Band");
+		row.createCell(1).setCellValue("Logs");
+		row.createCell(2).setCellValue("Passed");
+		row.createCell(3).setCellValue("Pass Rate");
+		for (int s = 0; s < ExtractionEngine.LNA_SETS; s++) {
+			if (tally.isLimited(s)) {
+				writePassRate(compliance.createRow(rowCount++), LogCondenser.sectionName(s), tally.getLogs(), tally.sectionPassed(s));
+			}
+		}
+		writePassRate(compliance.createRow(rowCount++), "Every Limit", tally.getLogs(), tally.getPassed());
+		rowCount++;
+		
+		int maxBins = 0;
+		for (int i = 0; i < limits.size(); i++) {
+			maxBins = Math.max(maxBins, limits.bins(i));
+		}
+		row = compliance.createRow(rowCount++);
+		String[] header = {"Limit", "Logs", "Passed", "Pass Rate", "Low", "High", "Bin Width", "Below Low"};
+		for (int col = 0; col < header.length; col++) {
+			row.createCell(col).setCellValue(header[col]);
+		}
+		for (int bin = 1; bin <= maxBins; bin++) {
+			row.createCell(header.length + bin - 1).setCellValue("Bin " + bin);
+		}
+		row.createCell(header.length + maxBins).setCellValue("Above High");
+		
+		for (int i = 0; i < limits.size(); i++) {
+			row = compliance.createRow(rowCount++);
+			writePassRate(row, limits.name(i), tally.getLogs(), tally.limitPassed(i));
+			row.createCell(4).setCellValue(limits.low(i));
+			row.createCell(5).setCellValue(limits.high(i));
+			row.createCell(6).setCellValue(limits.binWidth(i));
+			row.createCell(7).setCellValue(tally.count(i, 0));
+			for (int bin = 1; bin <= limits.bins(i); bin++) {
+				row.createCell(header.length + bin - 1).setCellValue(tally.count(i, bin));
+			}
+			row.createCell(header.length + maxBins).setCellValue(tally.count(i, limits.bins(i) + 1)); // Lined up with the header
+		}
+		compliance.setColumnWidth(0, 7500);
+		
+		if (!failures.isEmpty()) {
+			SXSSFSheet failed = workbook.createSheet("Limit Failures");
+			int failedRows = 0;
+			row = failed.createRow(failedRows++);
+			row.createCell(0).setCellValue("Log");
+			row.createCell(1).setCellValue("First Failed Limit");
+			failed.setColumnWidth(0, 7500);
+			failed.setColumnWidth(1, 10000);
+			for (Map.Entry<String, String> e : failures.entrySet()) {
+				row = failed.createRow(failedRows++);
+				row.createCell(0).setCellValue(e.getKey());
+				row.createCell(1).setCellValue(e.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Writes a name followed by the logs checked, the logs passed and the pass rate in percent.
+	 */
+	private void writePassRate(SXSSFRow row, String name, long logs, long passed) {
+		row.createCell(0).setCellValue(name);
+		row.createCell(1).setCellValue(logs);
+		row.createCell(2).setCellValue(passed);
+		row.createCell(3).setCellValue(logs == 0 ? 0 : Analyze.round(100.0 * passed / logs, 2));
+	}
+	
+	/**
+	 * Writes the workbook to output or stream and deletes its temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (stream != null) {
+				workbook.write(stream);
+			} else {
+				try (FileOutputStream out = new FileOutputStream(output)) {
+					workbook.write(out);
+				}
+			}
+		} finally {
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Queries the ResultsStore of a run: lists the logs matching conditions on their values, or gives the statistics or the
+ * outliers of a column over them.
+ * Usage: ResultsQuery <store file or log directory> [--where CONDITION]... [--stats COLUMN | --outliers COLUMN [--sigma K] | --log NAME | --columns] [--limit N]
+ * A condition compares a column with a number, e.g. "B13.txMax3<22.5" or "corrupt=0", and every condition must hold.
+ * Corrupt logs have their LNA values of the corrupt set as 0, "corrupt=0" leaves them out like the workbook does.
+ * @author abhi
+ */
+public class ResultsQuery {
+	private static final Pattern CONDITION = Pattern.compile("([A-Za-z0-9.]+)\\s*(<=|>=|!=|=|<|>)\\s*(\\S+)");
+	private static final List<String> OPS = Arrays.asList("<", "<=", ">", ">=", "=", "!="); // Indexed by the Condition ops
+	
+	private final ResultsStore store;
+	private final List<Condition> conditions = new ArrayList<Condition>();
+	private final double[] column = new double[ResultsStore.BLOCK_ROWS]; // Values of a column of the current block
+	
+	public ResultsQuery(ResultsStore store) {
+		this.store = store;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		File file = new File(args[0]);
+		if (file.isDirectory()) {
+			file = Analyze.storeFile(file);
+		}
+		
+		try (ResultsStore store = new ResultsStore(file)) {
+			ResultsQuery query = new ResultsQuery(store);
+			String stats = null;
+			String outliers = null;
+			String log = null;
+			double sigma = 3;
+			int limit = 100;
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].equals("--where")) {
+					query.where(args[++i]);
+				} else if (args[i].equals("--stats")) {
+					stats = args[++i];
+				} else if (args[i].equals("--outliers")) {
+					outliers = args[++i];
+				} else if (args[i].equals("--sigma")) {
+					sigma = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("--log")) {
+					log = args[++i];
+				} else if (args[i].equals("--limit")) {
+					limit = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("--columns")) {
+					for (int c = 0; c < ResultsStore.columns(); c++) {
+						System.out.println(ResultsStore.columnName(c));
+					}
+					return;
+				}
+			}
+			
+			long startTime = System.nanoTime();
+			if (log != null) {
+				query.printLog(log);
+			} else if (stats != null) {
+				query.printStats(ResultsStore.column(stats));
+			} else if (outliers != null) {
+				query.printOutliers(ResultsStore.column(outliers), sigma, limit);
+			} else {
+				query.printMatches(limit);
+			}
+			System.out.println("(" + store.size() + " logs scanned in " + (System.nanoTime() - startTime) / 1000000 + " ms)");
+		}
+	}
+	
+	/**
+	 * Adds a condition every log must meet, such as "B13.txMax3<22.5".
+	 * @throws IllegalArgumentException if condition cannot be parsed
+	 */
+	public void where(String condition) {
+		Matcher m = CONDITION.matcher(condition);
+		if (!m.matches()) {
+			throw new IllegalArgumentException("Cannot parse condition " + condition + ", expected COLUMN<VALUE, with <, <=, >, >=, = or !=");
+		}
+		conditions.add(new Condition(ResultsStore.column(m.group(1)), OPS.indexOf(m.group(2)), Double.parseDouble(m.group(3))));
+	}
+	
+	/**
+	 * Returns the values of column for the logs meeting every condition.
+	 */
+	public double[] values(int column) {
+		double[] values = new double[store.size()];
+		int n = 0;
+		for (int b = 0; b < store.blocks(); b++) {
+			boolean[] mask = mask(b);
+			store.read(b, column, this.column);
+			for (int row = 0; row < mask.length; row++) {
+				if (mask[row]) {
+					values[n++] = this.column[row];
+				}
+			}
+		}
+		return Arrays.copyOf(values, n);
+	}
+	
+	/**
+	 * Returns which logs of a block meet every condition, testing a whole column at a time.
+	 */
+	private boolean[] mask(int block) {
+		boolean[] mask = new boolean[store.rows(block)];
+		Arrays.fill(mask, true);
+		for (Condition condition : conditions) {
+			store.read(block, condition.column, column);
+			for (int row = 0; row < mask.length; row++) {
+				mask[row] &= condition.test(column[row]);
+			}
+		}
+		return mask;
+	}
+	
+	private void printMatches(int limit) {
+		int matches = 0;
+		for (int b = 0; b < store.blocks(); b++) {
+			boolean[] mask = mask(b);
+			for (int row = 0; row < mask.length; row++) {
+				if (mask[row] && matches++ < limit) {
+					System.out.println(store.name(b, row));
+				}
+			}
+		}
+		System.out.println(matches + " logs match" + (matches > limit ? ", the first " + limit + " are listed" : ""));
+	}
+	
+	private void printStats(int column) {
+		double[] values = values(column);
+		if (values.length == 0) {
+			System.out.println("No logs match");
+			return;
+		}
+		double[] stats = StatsBackend.getStats(values);
+		System.out.println(ResultsStore.columnName(column) + " over " + values.length + " logs");
+		System.out.println("Min " + stats[0] + ", Max " + stats[1] + ", Mean " + stats[2] + ", Median " + stats[3] + ", Std. Dev. " + stats[4]);
+	}
+	
+	/**
+	 * Prints the logs whose value of column is more than sigma standard deviations from the mean of the matching logs.
+	 */
+	private void printOutliers(int column, double sigma, int limit) {
+		double[] values = values(column);
+		if (values.length == 0) {
+			System.out.println("No logs match");
+			return;
+		}
+		double[] stats = StatsBackend.getStats(values);
+		double mean = stats[2];
+		double limitDeviation = sigma * stats[4];
+		int outliers = 0;
+		for (int b = 0; b < store.blocks(); b++) {
+			boolean[] mask = mask(b);
+			store.read(b, column, this.column);
+			for (int row = 0; row < mask.length; row++) {
+				if (mask[row] && Math.abs(this.column[row] - mean) > limitDeviation && outliers++ < limit) {
+					System.out.println(store.name(b, row) + "\t" + this.column[row]);
+				}
+			}
+		}
+		System.out.println(outliers + " logs more than " + sigma + " std. dev. (" + stats[4] + ") from the mean (" + mean + ") of "
+				+ ResultsStore.columnName(column));
+	}
+	
+	private void printLog(String name) {
+		for (int b = 0; b < store.blocks(); b++) {
+			for (int row = 0; row < store.rows(b); row++) {
+				if (store.name(b, row).equals(name)) {
+					for (int c = 0; c < ResultsStore.columns(); c++) {
+						System.out.println(ResultsStore.columnName(c) + "\t" + store.get(b, c, row));
+					}
+					return;
+				}
+			}
+		}
+		System.out.println("No log " + name);
+	}
+	
+	/**
+	 * Comparison of a column with a value.
+	 */
+	private static class Condition {
+		private static final int LT = 0;
+		private static final int LE = 1;
+		private static final int GT = 2;
+		private static final int GE = 3;
+		private static final int EQ = 4;
+		
+		private final int column;
+		private final int op; // See OPS
+		private final double value;
+		
+		Condition(int column, int op, double value) {
+			this.column = column;
+			this.op = op;
+			this.value = value;
+		}
+		
+		boolean test(double v) {
+			switch (op) {
+			case LT: return v < value;
+			case LE: return v <= value;
+			case GT: return v > value;
+			case GE: return v >= value;
+			case EQ: return v == value;
+			default: return v != value;
+			}
+		}
+	}
+}
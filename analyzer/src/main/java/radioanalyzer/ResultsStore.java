@@ -0,0 +1,337 @@
+package radioanalyzer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped columnar store of the values extracted from every log of a run, so that single logs can be looked up and
+ * queried (see ResultsQuery) without condensing the logs again.
+ * The file is a header followed by blocks of up to BLOCK_ROWS logs. Each block holds one column after another: the corrupt
+ * flags, every Tx Linearizer value, every RxFCompLNAOffset and the log names. Blocks are appended as logs are extracted,
+ * and each is mapped separately, so the store can grow past 2 GB.
+ * @author abhi
+ */
+public class ResultsStore implements Closeable {
+	private static final int MAGIC = 0x52415331; // "RAS1"
+	private static final int VERSION = 1; // Bump whenever the columns or the format change
+	private static final int HEADER = 8;
+	public static final int BLOCK_ROWS = 8192;
+	
+	// Columns, see column(String)
+	private static final String[] BANDS = {"B2", "B4", "B5", "B12", "B13", "B17"};
+	private static final String[] POWER_SLOTS = {"txMax3", "txMax0", "aptMax3", "aptMax0", "txMin3", "txMin0", "aptMin3", "aptMin0"}; // maxPowers then minPowers
+	private static final String[] LNA_SETS = {"B2", "B4", "B5", "B12", "B13", "B17", "B5div", "B12div", "B13div", "B17div"};
+	public static final int POWER_COLUMNS = ExtractionEngine.POWER_BANDS * POWER_SLOTS.length;
+	public static final int LNA_COLUMNS; // Only the devices each set has
+	public static final int CORRUPT; // 1 for a corrupt log, 0 otherwise
+	private static final String[] COLUMNS;
+	private static final int[] LNA_INDEX; // Index in LogRecord.lna of each LNA column
+	
+	static {
+		List<String> names = new ArrayList<String>();
+		List<Integer> lnaIndex = new ArrayList<Integer>();
+		for (int k = 0; k < BANDS.length; k++) {
+			for (String slot : POWER_SLOTS) {
+				names.add(BANDS[k] + "." + slot);
+			}
+		}
+		for (int set = 0; set < LNA_SETS.length; set++) {
+			int devices = set < 2 ? RunAggregate.DEVICES : 1;
+			for (int d = 0; d < devices; d++) {
+				for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+					names.add(LNA_SETS[set] + ".lna.d" + d + ".r" + r);
+					lnaIndex.add(LogRecord.lnaIndex(set, d, r));
+				}
+			}
+		}
+		LNA_COLUMNS = lnaIndex.size();
+		CORRUPT = names.size();
+		names.add("corrupt");
+		COLUMNS = names.toArray(new String[0]);
+		LNA_INDEX = new int[LNA_COLUMNS];
+		for (int i = 0; i < LNA_COLUMNS; i++) {
+			LNA_INDEX[i] = lnaIndex.get(i);
+		}
+	}
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer[] blocks;
+	private final int[] rows; // Number of logs in each block
+	private int size = 0;
+	
+	/**
+	 * Maps the blocks of file. A block that is still being written is left out.
+	 * @throws IOException if file is not a results store of this version
+	 */
+	public ResultsStore(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		long length = channel.size();
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, HEADER));
+		if (length < HEADER || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			channel.close();
+			throw new IOException(file + " is not a results store of this version");
+		}
+		
+		List<MappedByteBuffer> blocks = new ArrayList<MappedByteBuffer>();
+		List<Integer> rows = new ArrayList<Integer>();
+		long position = HEADER;
+		while (position + 8 <= length) {
+			MappedByteBuffer counts = channel.map(FileChannel.MapMode.READ_ONLY, position, 8);
+			int blockRows = counts.getInt(0);
+			long blockLength = blockLength(blockRows, counts.getInt(4));
+			if (position + blockLength > length) {
+				break;
+			}
+			blocks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, blockLength));
+			rows.add(blockRows);
+			size += blockRows;
+			position += blockLength;
+		}
+		this.blocks = blocks.toArray(new MappedByteBuffer[0]);
+		this.rows = new int[rows.size()];
+		for (int b = 0; b < this.rows.length; b++) {
+			this.rows[b] = rows.get(b);
+		}
+	}
+	
+	/**
+	 * Returns the number of logs in the store.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	public int blocks() {
+		return blocks.length;
+	}
+	
+	/**
+	 * Returns the number of logs in a block.
+	 */
+	public int rows(int block) {
+		return rows[block];
+	}
+	
+	/**
+	 * Returns the value of a column for a log of a block.
+	 */
+	public double get(int block, int column, int row) {
+		MappedByteBuffer buffer = blocks[block];
+		int n = rows[block];
+		if (column < POWER_COLUMNS) {
+			return buffer.getDouble(powerOffset(n) + (column * n + row) * 8);
+		}
+		if (column < CORRUPT) {
+			return buffer.getInt(lnaOffset(n) + ((column - POWER_COLUMNS) * n + row) * 4);
+		}
+		return buffer.get(8 + row);
+	}
+	
+	/**
+	 * Copies a column of a block into values, which must have room for rows(block) values. Reads the column in one pass,
+	 * so scanning a column is much faster than calling get for every log.
+	 */
+	public void read(int block, int column, double[] values) {
+		MappedByteBuffer buffer = blocks[block];
+		int n = rows[block];
+		if (column < POWER_COLUMNS) {
+			buffer.slice(powerOffset(n) + column * n * 8, n * 8).asDoubleBuffer().get(values, 0, n);
+		} else if (column < CORRUPT) {
+			int offset = lnaOffset(n) + (column - POWER_COLUMNS) * n * 4;
+			for (int row = 0; row < n; row++) {
+				values[row] = buffer.getInt(offset + row * 4);
+			}
+		} else {
+			for (int row = 0; row < n; row++) {
+				values[row] = buffer.get(8 + row);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the name of a log of a block.
+	 */
+	public String name(int block, int row) {
+		MappedByteBuffer buffer = blocks[block];
+		int n = rows[block];
+		int offsets = namesOffset(n);
+		int start = buffer.getInt(offsets + row * 4);
+		int end = buffer.getInt(offsets + (row + 1) * 4);
+		byte[] bytes = new byte[end - start];
+		buffer.get(offsets + (n + 1) * 4 + start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Returns the column with name, such as "B13.txMax3" or "B2.lna.d1.r5".
+	 * @throws IllegalArgumentException if there is no such column
+	 */
+	public static int column(String name) {
+		for (int c = 0; c < COLUMNS.length; c++) {
+			if (COLUMNS[c].equals(name)) {
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("No column " + name + ", see --columns");
+	}
+	
+	public static String columnName(int column) {
+		return COLUMNS[column];
+	}
+	
+	/**
+	 * Returns the value of a column for a log as it is written to the store, without writing it.
+	 */
+	public static double value(LogRecord record, int column) {
+		if (column < POWER_COLUMNS) {
+			int slot = column % POWER_SLOTS.length;
+			double[] powers = slot < 4 ? record.maxPowers[column / POWER_SLOTS.length] : record.minPowers[column / POWER_SLOTS.length];
+			return slot % 4 < powers.length ? powers[slot % 4] : Double.NaN;
+		}
+		if (column < CORRUPT) {
+			return record.lna[LNA_INDEX[column - POWER_COLUMNS]];
+		}
+		return record.corrupt ? 1 : 0;
+	}
+	
+	/**
+	 * Returns the ESC LTE section of a column, indexed like LogCondenser.condense, or -1 for the corrupt flags.
+	 */
+	public static int section(int column) {
+		if (column < POWER_COLUMNS) {
+			return column / POWER_SLOTS.length;
+		}
+		if (column < CORRUPT) {
+			return LNA_INDEX[column - POWER_COLUMNS] / LogRecord.LNA_VALUES;
+		}
+		return -1;
+	}
+	
+	public static int columns() {
+		return COLUMNS.length;
+	}
+	
+	// Offsets within a block of n logs, every section starting on 8 bytes
+	private static int powerOffset(int n) {
+		return 8 + align(n);
+	}
+	
+	private static int lnaOffset(int n) {
+		return powerOffset(n) + POWER_COLUMNS * n * 8;
+	}
+	
+	private static int namesOffset(int n) {
+		return lnaOffset(n) + align(LNA_COLUMNS * n * 4);
+	}
+	
+	private static long blockLength(int n, int nameBytes) {
+		return namesOffset(n) + align((n + 1) * 4 + nameBytes);
+	}
+	
+	private static int align(int bytes) {
+		return (bytes + 7) & ~7;
+	}
+	
+	/**
+	 * Writes the logs of a run to a new store, a block at a time. add may be called from several threads.
+	 */
+	public static class Writer implements Closeable {
+		private final DataOutputStream out;
+		private final List<LogRecord> pending = new ArrayList<LogRecord>(); // Logs of the next block
+		
+		/**
+		 * Creates file, replacing the store of an earlier run.
+		 */
+		public Writer(File file) throws IOException {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+		
+		public synchronized void add(LogRecord record) throws IOException {
+			pending.add(record);
+			if (pending.size() == BLOCK_ROWS) {
+				flush();
+			}
+		}
+		
+		/**
+		 * Writes the logs added since the last block as a block, so that readers see them.
+		 */
+		public synchronized void flush() throws IOException {
+			if (pending.isEmpty()) {
+				return;
+			}
+			int n = pending.size();
+			byte[][] names = new byte[n][];
+			int nameBytes = 0;
+			for (int i = 0; i < n; i++) {
+				names[i] = pending.get(i).name.getBytes(StandardCharsets.UTF_8);
+				nameBytes += names[i].length;
+			}
+			
+			out.writeInt(n);
+			out.writeInt(nameBytes);
+			for (LogRecord record : pending) {
+				out.writeByte(record.corrupt ? 1 : 0);
+			}
+			pad(n);
+			for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+				for (int slot = 0; slot < POWER_SLOTS.length; slot++) {
+					for (LogRecord record : pending) {
+						double[] powers = slot < 4 ? record.maxPowers[k] : record.minPowers[k];
+						out.writeDouble(slot % 4 < powers.length ? powers[slot % 4] : Double.NaN);
+					}
+				}
+			}
+			for (int c = 0; c < LNA_COLUMNS; c++) {
+				for (LogRecord record : pending) {
+					out.writeInt(record.lna[LNA_INDEX[c]]);
+				}
+			}
+			pad(LNA_COLUMNS * n * 4);
+			int offset = 0;
+			out.writeInt(0);
+			for (byte[] name : names) {
+				offset += name.length;
+				out.writeInt(offset);
+			}
+			for (byte[] name : names) {
+				out.write(name);
+			}
+			pad((n + 1) * 4 + nameBytes);
+			out.flush();
+			pending.clear();
+		}
+		
+		private void pad(int bytes) throws IOException {
+			for (int i = bytes; i < align(bytes); i++) {
+				out.writeByte(0);
+			}
+		}
+		
+		@Override
+		public synchronized void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package radioanalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Running Tx Linearizer and LNA Offset data of all the logs added so far, from which the report is generated.
+ * Logs can be added one at a time, so the report can be brought up to date without extracting the earlier logs again,
+ * and memory stays bounded however many logs are added.
+ * @author abhi
+ */
+public class RunAggregate {
+	// Tx Linearizer series of each band
+	public static final int TX_MAX_3 = 0; // Tx Linearizer Sweep Max PA State 3
+	public static final int TX_MAX_0 = 1; // Tx Linearizer Sweep Max PA State 0
+	public static final int TX_MIN_3 = 2; // Tx Linearizer Sweep Min PA State 3
+	public static final int TX_MIN_0 = 3; // Tx Linearizer Sweep Min PA State 0
+	public static final int APT_MAX_3 = 4; // APT Tx Linearizer Sweep Max PA State 3
+	public static final int APT_MAX_0 = 5; // APT Tx Linearizer Sweep Max PA State 0
+	public static final int APT_MIN_3 = 6; // APT Tx Linearizer Sweep Min PA State 3
+	public static final int APT_MIN_0 = 7; // APT Tx Linearizer Sweep Min PA State 0
+	public static final int SERIES = 8;
+	
+	public static final int DEVICES = 4; // B2 and B4 have LNA Offset data for 4 devices, the other bands for 1
+	public static final int RX_LVLS = 6; // -61, -60, -50, -40, -40, -40
+	
+	private final StatsAccumulator[][] power = new StatsAccumulator[ExtractionEngine.POWER_BANDS][SERIES]; // [band][series]
+	private final long[] lnaSums = new long[ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES]; // Laid out like LogRecord.lna, over the logs that are not corrupt
+	private TrendStats trend; // Statistics over the time the logs were written
+	private int logs = 0;
+	private int corruptLogs = 0; // Quarantined, see LogRecord.defect
+	
+	public RunAggregate() {
+		this(TrendStats.DEFAULT_BUCKET, TrendStats.DEFAULT_WINDOW);
+	}
+	
+	/**
+	 * @param trendBucket: Length of the time buckets of the trend in ms, see TrendStats
+	 * @param trendWindow: Number of buckets in the sliding window of the trend
+	 */
+	public RunAggregate(long trendBucket, int trendWindow) {
+		trend = new TrendStats(trendBucket, trendWindow);
+		for (StatsAccumulator[] band : power) {
+			for (int s = 0; s < SERIES; s++) {
+				band[s] = new StatsAccumulator();
+			}
+		}
+	}
+	
+	/**
+	 * Adds the values extracted from a single log.
+	 */
+	public void add(LogRecord record) {
+		logs++;
+		
+		// Quarantined logs are left out of every statistic
+		if (record.corrupt) {
+			corruptLogs++;
+			return;
+		}
+		addPowers(record);
+		trend.add(record);
+		for (int i = 0; i < lnaSums.length; i++) {
+			lnaSums[i] += record.lna[i];
+		}
+	}
+	
+	private void addPowers(LogRecord record) {
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			double[] maxPowers = record.maxPowers[k];
+			double[] minPowers = record.minPowers[k];
+			power[k][TX_MAX_3].add(maxPowers[0]);
+			power[k][TX_MAX_0].add(maxPowers[1]);
+			power[k][APT_MAX_3].add(maxPowers[2]);
+			power[k][APT_MAX_0].add(maxPowers[3]);
+			power[k][TX_MIN_3].add(minPowers[0]);
+			power[k][TX_MIN_0].add(minPowers[1]);
+			power[k][APT_MIN_3].add(minPowers[2]);
+			power[k][APT_MIN_0].add(minPowers[3]);
+		}
+	}
+		
+	/**
+	 * Adds the values extracted from a batch of logs, like add for each of them.
+	 */
+	public void addAll(LogRecord[] records) {
+		for (LogRecord record : records) {
+			add(record);
+		}
+	}
+	
+	/**
+	 * Adds everything added to other, such as the logs of another shard or thread. other is not changed.
+	 */
+	public void merge(RunAggregate other) {
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < SERIES; s++) {
+				power[k][s].merge(other.power[k][s]);
+			}
+		}
+		for (int i = 0; i < lnaSums.length; i++) {
+			lnaSums[i] += other.lnaSums[i];
+		}
+		trend.merge(other.trend);
+		logs += other.logs;
+		corruptLogs += other.corruptLogs;
+	}
+	
+	/**
+	 * Writes the aggregate to out, to be read back with read and merged in another process.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(logs);
+		out.writeInt(corruptLogs);
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < SERIES; s++) {
+				power[k][s].write(out);
+			}
+		}
+		for (long sum : lnaSums) {
+			out.writeLong(sum);
+		}
+		trend.write(out);
+	}
+	
+	/**
+	 * Reads an aggregate written by write.
+	 */
+	public static RunAggregate read(DataInputStream in) throws IOException {
+		RunAggregate aggregate = new RunAggregate();
+		aggregate.logs = in.readInt();
+		aggregate.corruptLogs = in.readInt();
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < SERIES; s++) {
+				aggregate.power[k][s] = StatsAccumulator.read(in);
+			}
+		}
+		for (int i = 0; i < aggregate.lnaSums.length; i++) {
+			aggregate.lnaSums[i] = in.readLong();
+		}
+		aggregate.trend = TrendStats.read(in);
+		return aggregate;
+	}
+	
+	/**
+	 * Returns the number of logs added so far.
+	 */
+	public int getLogs() {
+		return logs;
+	}
+	
+	/**
+	 * Returns the number of quarantined logs added so far, which are left out of every statistic.
+	 */
+	public int getCorruptLogs() {
+		return corruptLogs;
+	}
+	
+	/**
+	 * Returns the statistics of every series over the time the logs were written.
+	 */
+	public TrendStats getTrend() {
+		return trend;
+	}
+	
+	/**
+	 * Returns the accumulator of a Tx Linearizer series of a band, for quantiles other than the median.
+	 */
+	public StatsAccumulator powerAccumulator(int band, int series) {
+		return power[band][series];
+	}
+	
+	/**
+	 * Returns [Min, Max, Mean, Median, Std. Dev.] of a Tx Linearizer series of a band, all 0 if every log was quarantined.
+	 */
+	public double[] powerStats(int band, int series) {
+		return power[band][series].getStats();
+	}
+	
+	/**
+	 * Returns the average RxFCompLNAOffset of an LNA set as [device][RxLvl], 4 devices for B2 and B4 and 1 device otherwise.
+	 */
+	public int[][] lnaAverages(int set) {
+		int correctedLogsLength = logs - corruptLogs; // Correct total number of logs to be used in statistical analysis
+		int devices = set < 2 ? DEVICES : 1;
+		int[][] averages = new int[devices][RX_LVLS];
+		if (correctedLogsLength == 0) {
+			return averages;
+		}
+		for (int k = 0; k < devices; k++) {
+			for (int i = 0; i < RX_LVLS; i++) {
+				averages[k][i] = (int) (lnaSums[LogRecord.lnaIndex(set, k, i)] / correctedLogsLength); // Divides by total logs used to get average LNA Offset
+			}
+		}
+		return averages;
+	}
+}
@@ -0,0 +1,87 @@
+package radioanalyzer;
+
+import java.util.List;
+
+/**
+ * The ESC LTE sections and metrics a run is limited to, such as only the LNA Offsets of B17 Diversity, given by --band and
+ * --metric. Only the selected parts of each log are read and extracted, see ExtractionEngine.extractSelected, and only their
+ * statistics are written.
+ * @author abhi
+ */
+public class SectionFilter {
+	public static final SectionFilter ALL = new SectionFilter(null, true, true);
+	
+	private final boolean[] sections; // Indexed like LogCondenser.condense, null for every section
+	private final boolean tx; // Tx Linearizer data of the regular bands
+	private final boolean lna; // RxFCompLNAOffset data
+	
+	private SectionFilter(boolean[] sections, boolean tx, boolean lna) {
+		this.sections = sections;
+		this.tx = tx;
+		this.lna = lna;
+	}
+	
+	/**
+	 * @param bands: Names of the selected sections, such as "B13" or "B17 Diversity", empty for every section
+	 * @param metric: "tx", "lna", or null for both
+	 * @throws IllegalArgumentException if a band or the metric is unknown
+	 */
+	public static SectionFilter of(List<String> bands, String metric) {
+		boolean[] sections = null;
+		if (!bands.isEmpty()) {
+			sections = new boolean[ExtractionEngine.LNA_SETS];
+			for (String band : bands) {
+				sections[section(band)] = true;
+			}
+		}
+		if (metric == null) {
+			return sections == null ? ALL : new SectionFilter(sections, true, true);
+		} else if (metric.equalsIgnoreCase("tx")) {
+			return new SectionFilter(sections, true, false);
+		} else if (metric.equalsIgnoreCase("lna")) {
+			return new SectionFilter(sections, false, true);
+		}
+		throw new IllegalArgumentException("Unknown metric " + metric + ", use tx or lna");
+	}
+	
+	/**
+	 * Returns the section of a band name, with or without "ESC LTE", such as "B13" or "ESC LTE B17 Diversity".
+	 */
+	private static int section(String band) {
+		for (int s = 0; s < ExtractionEngine.LNA_SETS; s++) {
+			String name = LogCondenser.sectionName(s);
+			if (name.equalsIgnoreCase(band) || name.substring("ESC LTE ".length()).equalsIgnoreCase(band)) {
+				return s;
+			}
+		}
+		throw new IllegalArgumentException("Unknown band " + band + ", use B2, B4, B5, B12, B13, B17 or B5-B17 Diversity");
+	}
+	
+	/**
+	 * Returns true if the Tx Linearizer data of a regular band is selected.
+	 */
+	public boolean tx(int band) {
+		return tx && band < ExtractionEngine.POWER_BANDS && (sections == null || sections[band]);
+	}
+	
+	/**
+	 * Returns true if the RxFCompLNAOffset data of an LNA set is selected.
+	 */
+	public boolean lna(int set) {
+		return lna && (sections == null || sections[set]);
+	}
+	
+	/**
+	 * Returns true if a section has any selected data.
+	 */
+	public boolean selects(int section) {
+		return tx(section) || lna(section);
+	}
+	
+	/**
+	 * Returns true if everything is selected, as in a run without --band or --metric.
+	 */
+	public boolean isAll() {
+		return sections == null && tx && lna;
+	}
+}
@@ -0,0 +1,175 @@
+package radioanalyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Byte offsets of the 10 ESC LTE sections of a log and of their Tx Linearizer and LNA blocks, kept in a small sidecar file
+ * next to the log (see sidecar), so that a run limited to a few sections (see SectionFilter) reads and scans only those blocks
+ * instead of the whole log.
+ * The Tx Linearizer block runs from the first Max or Min Power key of a section to the value of the last one, the LNA block
+ * from the LNA key to the end of the section. Extracting from a block gives the same values and defects as extracting from
+ * the whole section. A sidecar is only used while the size and last modified time of its log are unchanged.
+ * @author abhi
+ */
+public class SectionIndex {
+	private static final int MAGIC = 0x52415349; // "RASI"
+	private static final int VERSION = 1; // Bump whenever the blocks or the format change, which rebuilds old sidecars
+	private static final String SUFFIX = ".sections";
+	
+	// Markers of the keys the blocks start at, see LogCondenser.MARKERS
+	private static final int MAX_POWER = LogCondenser.MARKERS.indexOf("Tx Lin Swp Max Power");
+	private static final int MIN_POWER = LogCondenser.MARKERS.indexOf("Tx Lin Swp Min Power");
+	private static final int LNA = LogCondenser.MARKERS.indexOf("LNA");
+	
+	// Offsets of each section, [section * FIELDS + field]
+	private static final int START = 0;
+	private static final int END = 1;
+	private static final int TX_START = 2;
+	private static final int TX_END = 3;
+	private static final int LNA_START = 4; // The end of the section when it has no LNA key
+	private static final int FIELDS = 5;
+	
+	public final String defect; // Section the log is missing, as returned by LogCondenser.condense, or null
+	private final int[] offsets;
+	
+	private SectionIndex(String defect, int[] offsets) {
+		this.defect = defect;
+		this.offsets = offsets;
+	}
+	
+	/**
+	 * Locates the sections and blocks of a log from the markers of the whole log.
+	 */
+	public static SectionIndex of(MarkerIndex markers) {
+		LogSection[] sections = new LogSection[ExtractionEngine.LNA_SETS];
+		int[] offsets = new int[sections.length * FIELDS];
+		String defect = LogCondenser.condense(markers, sections);
+		if (defect != null) {
+			return new SectionIndex(defect, offsets);
+		}
+		for (int s = 0; s < sections.length; s++) {
+			LogSection section = sections[s];
+			int base = s * FIELDS;
+			offsets[base + START] = section.absoluteStart();
+			offsets[base + END] = section.absoluteEnd();
+			
+			int first = section.length();
+			int last = -1;
+			for (int key : new int[] {MAX_POWER, MIN_POWER}) {
+				for (int index = markers.indexOf(key, section); index >= 0; index = markers.indexOf(key, section, index + 1)) {
+					first = Math.min(first, index);
+					last = Math.max(last, index);
+				}
+			}
+			offsets[base + TX_START] = section.absoluteStart() + (last < 0 ? 0 : first);
+			offsets[base + TX_END] = section.absoluteStart() + (last < 0 ? 0 : Math.min(last + ValueReader.WINDOW, section.length()));
+			
+			int lna = markers.indexOf(LNA, section);
+			offsets[base + LNA_START] = section.absoluteStart() + (lna < 0 ? section.length() : lna);
+		}
+		return new SectionIndex(null, offsets);
+	}
+	
+	public int start(int section) {
+		return offsets[section * FIELDS + START];
+	}
+	
+	public int end(int section) {
+		return offsets[section * FIELDS + END];
+	}
+	
+	/**
+	 * Returns the offset of the first Max or Min Power key of a section, or its start if it has none.
+	 */
+	public int txStart(int section) {
+		return offsets[section * FIELDS + TX_START];
+	}
+	
+	/**
+	 * Returns the offset after the value of the last Max or Min Power key of a section, or its start if it has none.
+	 */
+	public int txEnd(int section) {
+		return offsets[section * FIELDS + TX_END];
+	}
+	
+	/**
+	 * Returns the offset of the LNA key of a section, or its end if it has none.
+	 */
+	public int lnaStart(int section) {
+		return offsets[section * FIELDS + LNA_START];
+	}
+	
+	/**
+	 * Returns the sidecar of log, such as "log.xml.sections" next to "log.xml".
+	 */
+	public static File sidecar(File log) {
+		return new File(log.getPath() + SUFFIX);
+	}
+	
+	/**
+	 * Returns true if file is the sidecar of a log rather than a log.
+	 */
+	public static boolean isSidecar(File file) {
+		return file.getName().endsWith(SUFFIX);
+	}
+	
+	/**
+	 * Returns the index in the sidecar of log, or null if there is none, it is unreadable, or the log has changed since.
+	 * @param size: Size of log before it is read
+	 * @param modified: Last modified time of log before it is read
+	 */
+	public static SectionIndex read(File log, long size, long modified) {
+		File sidecar = sidecar(log);
+		if (!sidecar.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != size || in.readLong() != modified) {
+				return null;
+			}
+			String defect = in.readBoolean() ? in.readUTF() : null;
+			int[] offsets = new int[ExtractionEngine.LNA_SETS * FIELDS];
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = in.readInt();
+			}
+			return new SectionIndex(defect, offsets);
+		} catch (IOException e) {
+			return null; // Rebuilt from the log like a missing sidecar
+		}
+	}
+	
+	/**
+	 * Writes the index to the sidecar of log.
+	 * @param size: Size of log before it was read, so that a log changed while it was indexed is indexed again next time
+	 * @param modified: Last modified time of log before it was read
+	 * @throws IOException if the sidecar cannot be written, for example in a read-only directory
+	 */
+	public void write(File log, long size, long modified) throws IOException {
+		File sidecar = sidecar(log);
+		File temp = new File(log.getPath() + ".tmp" + SUFFIX); // Still skipped as a sidecar if it is ever left behind
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(size);
+			out.writeLong(modified);
+			out.writeBoolean(defect != null);
+			if (defect != null) {
+				out.writeUTF(defect);
+			}
+			for (int offset : offsets) {
+				out.writeInt(offset);
+			}
+		}
+		// Replaced in one step so that a concurrent run never reads a half written sidecar
+		Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
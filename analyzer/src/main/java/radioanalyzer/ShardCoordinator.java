@@ -0,0 +1,129 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the logs of a run across ShardWorker processes and merges their partial results, so that the extraction is not
+ * limited to a single JVM. Shards are contiguous runs of logs of about the same number of bytes, and are merged in order,
+ * so quarantined logs are reported in log order.
+ * @author abhi
+ */
+public class ShardCoordinator {
+	private final int shards; // Number of worker processes
+	private final int threads; // Extraction threads of each worker
+	
+	public ShardCoordinator(int shards, int threads) {
+		this.shards = shards;
+		this.threads = threads;
+	}
+	
+	/**
+	 * Extracts logs across the worker processes and adds them to aggregate, their quarantined logs to quarantine, and the
+	 * metrics of the workers to metrics.
+	 * @throws IOException if a worker fails, for example because a log cannot be read
+	 */
+	public void run(File[] logs, RunAggregate aggregate, Map<String, String> quarantine, PipelineMetrics metrics) throws IOException {
+		File directory = Files.createTempDirectory("radioanalyzer-shards").toFile(); // Shard lists and partial results
+		List<File> partials = new ArrayList<File>();
+		List<Process> workers = new ArrayList<Process>();
+		try {
+			for (File[] shard : split(logs, shards)) {
+				File shardList = new File(directory, "shard" + workers.size() + ".txt");
+				File partial = new File(directory, "shard" + workers.size() + ".partial");
+				List<String> paths = new ArrayList<String>(shard.length);
+				for (File log : shard) {
+					paths.add(log.getAbsolutePath());
+				}
+				Files.write(shardList.toPath(), paths, StandardCharsets.UTF_8);
+				workers.add(new ProcessBuilder(command(shardList, partial, aggregate.getTrend().getBucket())).inheritIO().start());
+				partials.add(partial);
+			}
+			
+			for (int i = 0; i < workers.size(); i++) {
+				int exitCode = workers.get(i).waitFor();
+				if (exitCode != 0) {
+					throw new IOException("Shard " + i + " failed with exit code " + exitCode);
+				}
+			}
+			merge(partials, aggregate, quarantine, metrics);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the shards", e);
+		} finally {
+			for (Process worker : workers) {
+				worker.destroy(); // Only the ones still running after a failure
+			}
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+	
+	/**
+	 * Merges partial results written by ShardWorker into aggregate, quarantine and metrics, in the order given, reporting the
+	 * quarantined logs.
+	 */
+	public static void merge(List<File> partials, RunAggregate aggregate, Map<String, String> quarantine, PipelineMetrics metrics) throws IOException {
+		for (File partial : partials) {
+			for (Map.Entry<String, String> e : ShardWorker.readPartial(partial, aggregate, metrics).entrySet()) {
+				Analyze.quarantine(quarantine, e.getKey(), e.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Splits logs into at most shards contiguous runs of about the same number of bytes, none of them empty.
+	 */
+	static List<File[]> split(File[] logs, int shards) {
+		long total = 0;
+		for (File log : logs) {
+			total += log.length();
+		}
+		List<File[]> split = new ArrayList<File[]>();
+		int from = 0;
+		long bytes = 0;
+		for (int i = 0; i < logs.length; i++) {
+			bytes += logs[i].length();
+			int remaining = shards - split.size(); // Shards left to fill, this one included
+			boolean share = bytes * shards >= total * (split.size() + 1); // The shards so far hold their share of the bytes
+			boolean last = logs.length - i - 1 == remaining - 1; // Only one log left for each of the other shards
+			if (remaining > 1 && (share || last)) {
+				split.add(Arrays.copyOfRange(logs, from, i + 1));
+				from = i + 1;
+			}
+		}
+		if (from < logs.length) {
+			split.add(Arrays.copyOfRange(logs, from, logs.length));
+		}
+		return split;
+	}
+	
+	/**
+	 * Returns the command line of a worker: the same Java, class path and JVM options as this process.
+	 * @param trendBucket: Length of the trend buckets of the run in ms, which the partial results must match
+	 */
+	private List<String> command(File shardList, File partial, long trendBucket) {
+		List<String> command = new ArrayList<String>();
+		command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ShardWorker.class.getName());
+		command.add(shardList.getPath());
+		command.add(partial.getPath());
+		command.add("--threads");
+		command.add(Integer.toString(threads));
+		command.add("--trend-bucket");
+		command.add(Double.toString(trendBucket / 60000.0));
+		return command;
+	}
+}
@@ -0,0 +1,108 @@
+package radioanalyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts one shard of the logs and writes a partial result for ShardCoordinator to merge: the RunAggregate of the shard,
+ * its quarantined logs and the extraction metrics. It can run in another process or on another host, as long as
+ * it can read the logs.
+ * Usage: ShardWorker shardList partialFile [--threads N] [--trend-bucket minutes]
+ * shardList has the path of one log or .zip archive per line.
+ * @author abhi
+ */
+public class ShardWorker {
+	private static final int MAGIC = 0x52415031; // "RAP1"
+	private static final int VERSION = 3; // Bump whenever the format of the partial result changes
+	
+	public static void main(String[] args) throws IOException {
+		File shardList = new File(args[0]);
+		File partial = new File(args[1]);
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		long trendBucket = TrendStats.DEFAULT_BUCKET; // Must match the run the partial is merged into
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("--threads")) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--trend-bucket")) {
+				trendBucket = Math.round(Double.parseDouble(args[++i]) * 60000);
+			}
+		}
+		
+		List<String> paths = Files.readAllLines(shardList.toPath(), StandardCharsets.UTF_8);
+		File[] logs = new File[paths.size()];
+		for (int i = 0; i < logs.length; i++) {
+			logs[i] = new File(paths.get(i));
+		}
+		
+		// The cache is shared by every run, so the workers leave it alone rather than overwrite each other's entries
+		PipelineMetrics metrics = new PipelineMetrics();
+		LogRecord[] records;
+		try (ExtractionEngine engine = new ExtractionEngine(parallelism, null, metrics)) {
+			records = engine.extractAll(logs);
+		}
+		
+		RunAggregate aggregate = new RunAggregate(trendBucket, TrendStats.DEFAULT_WINDOW); // The window is chosen by the merging run
+		aggregate.addAll(records);
+		Map<String, String> quarantine = new LinkedHashMap<String, String>();
+		for (LogRecord record : records) {
+			if (record.corrupt) {
+				quarantine.put(record.name, record.defect);
+			}
+		}
+		writePartial(partial, quarantine, metrics, aggregate);
+	}
+	
+	/**
+	 * Writes the partial result of a shard to file.
+	 * @param quarantine: Defect of each quarantined log of the shard, in log order
+	 */
+	public static void writePartial(File file, Map<String, String> quarantine, PipelineMetrics metrics, RunAggregate aggregate) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(quarantine.size());
+			for (Map.Entry<String, String> e : quarantine.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeUTF(e.getValue());
+			}
+			metrics.writeExtraction(out);
+			aggregate.write(out);
+		}
+	}
+	
+	/**
+	 * Reads the partial result of a shard from file, merging its aggregate into aggregate and its metrics into metrics.
+	 * @return the defect of each quarantined log of the shard, in log order.
+	 * @throws IOException if file is not a partial result of this version, or has trend buckets of another length
+	 */
+	public static Map<String, String> readPartial(File file, RunAggregate aggregate, PipelineMetrics metrics) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a partial result of this version");
+			}
+			int count = in.readInt();
+			Map<String, String> quarantine = new LinkedHashMap<String, String>();
+			for (int i = 0; i < count; i++) {
+				quarantine.put(in.readUTF(), in.readUTF());
+			}
+			metrics.addExtraction(in);
+			try {
+				aggregate.merge(RunAggregate.read(in));
+			} catch (IllegalArgumentException e) {
+				throw new IOException(file + ": " + e.getMessage() + ", extract the shard with the same --trend-bucket");
+			}
+			return quarantine;
+		}
+	}
+}
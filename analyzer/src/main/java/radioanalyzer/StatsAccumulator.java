@@ -0,0 +1,159 @@
+package radioanalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Single-pass, mergeable statistics of a series: min, max, mean and variance with Welford's method, and the median from a QuantileSketch.
+ * Accumulators of separate shards or threads can be merged into the statistics of the whole series.
+ * @author abhi
+ */
+public class StatsAccumulator {
+	private long count = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	private double mean = 0;
+	private double m2 = 0; // Sum of squared differences from the mean
+	private final QuantileSketch sketch;
+	
+	public StatsAccumulator() {
+		this(QuantileSketch.DEFAULT_K);
+	}
+	
+	/**
+	 * @param k: Number of values the median is exact for, see QuantileSketch
+	 */
+	public StatsAccumulator(int k) {
+		this(new QuantileSketch(k));
+	}
+	
+	private StatsAccumulator(QuantileSketch sketch) {
+		this.sketch = sketch;
+	}
+	
+	/**
+	 * Adds a value to the series.
+	 */
+	public void add(double value) {
+		count++;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		sketch.add(value);
+	}
+	
+	/**
+	 * Adds all the values of other to this accumulator (Chan et al.). other is not changed.
+	 */
+	public void merge(StatsAccumulator other) {
+		if (other.count == 0) {
+			return;
+		}
+		if (count == 0) { // Copied so that merging into an empty accumulator gives exactly the statistics of other
+			min = other.min;
+			max = other.max;
+			mean = other.mean;
+			m2 = other.m2;
+			count = other.count;
+			sketch.merge(other.sketch);
+			return;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * count * other.count / total;
+		count = total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		sketch.merge(other.sketch);
+	}
+	
+	/**
+	 * Writes the accumulator to out, to be read back with read, for example in another process.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeLong(count);
+		out.writeDouble(min);
+		out.writeDouble(max);
+		out.writeDouble(mean);
+		out.writeDouble(m2);
+		sketch.write(out);
+	}
+	
+	/**
+	 * Reads an accumulator written by write.
+	 */
+	public static StatsAccumulator read(DataInputStream in) throws IOException {
+		long count = in.readLong();
+		double min = in.readDouble();
+		double max = in.readDouble();
+		double mean = in.readDouble();
+		double m2 = in.readDouble();
+		StatsAccumulator acc = new StatsAccumulator(QuantileSketch.read(in));
+		acc.count = count;
+		acc.min = min;
+		acc.max = max;
+		acc.mean = mean;
+		acc.m2 = m2;
+		return acc;
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	public double getMin() {
+		return min;
+	}
+	
+	public double getMax() {
+		return max;
+	}
+	
+	public double getMean() {
+		return mean;
+	}
+	
+	/**
+	 * Returns the population variance.
+	 */
+	public double getVariance() {
+		return count == 0 ? 0 : m2 / count;
+	}
+	
+	public double getMedian() {
+		return sketch.median();
+	}
+	
+	/**
+	 * Returns the value at fraction q (0 to 1) of the sorted series, such as 0.9 for the 90th percentile.
+	 */
+	public double getQuantile(double q) {
+		return sketch.quantile(q);
+	}
+	
+	/**
+	 * Returns [Min, Max, Mean, Median, Std. Dev.] rounded the same way as Analyze.getStats, or all 0 for an empty series.
+	 */
+	public double[] getStats() {
+		double[] result = new double[5];
+		if (count == 0) {
+			return result; // All 0, like the LNA Offset averages of no logs
+		}
+		result[0] = min;
+		result[1] = max;
+		result[2] = Analyze.round(mean, 2);
+		result[3] = getMedian();
+		// Analyze.findStdDev measures the deviation from the rounded mean, which adds the square of the rounding to the variance
+		double offset = mean - result[2];
+		result[4] = Analyze.round(Math.sqrt(getVariance() + offset * offset), 2);
+		return result;
+	}
+}
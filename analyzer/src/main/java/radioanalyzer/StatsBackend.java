@@ -0,0 +1,31 @@
+package radioanalyzer;
+
+/**
+ * Chooses between the scalar statistics kernels and the SIMD ones of VectorStats.
+ * The SIMD kernels are used when the JVM runs with --add-modules jdk.incubator.vector, unless -Dradioanalyzer.scalar=true.
+ * Both give identical results.
+ * @author abhi
+ */
+public class StatsBackend {
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+			&& !Boolean.getBoolean("radioanalyzer.scalar");
+	
+	private StatsBackend() {}
+	
+	/**
+	 * Returns true if the SIMD kernels are in use.
+	 */
+	public static boolean isVectorized() {
+		return VECTORIZED;
+	}
+	
+	/**
+	 * Returns [Min, Max, Mean, Median, Std. Dev.] of nums, identical to Analyze.getStats(nums).
+	 */
+	public static double[] getStats(double[] nums) {
+		if (VECTORIZED && nums.length > 0) {
+			return VectorStats.getStats(nums);
+		}
+		return Analyze.getStats(nums);
+	}
+}
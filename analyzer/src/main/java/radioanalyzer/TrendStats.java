@@ -0,0 +1,285 @@
+package radioanalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics of every Tx Linearizer series and LNA set over production time, to spot drift across a manufacturing line.
+ * Logs are put in time buckets by LogRecord.time, each holding the count, sum and sum of squares of every series, so adding a
+ * log is O(1) however many logs came before. The sliding window over the last window buckets is then moved one bucket at a
+ * time by adding the bucket entering it and subtracting the one leaving it, so no window is computed from scratch.
+ * Buckets older than the retention are expired as newer logs arrive, which bounds memory for a run that never ends, such as
+ * LogWatcher.
+ * Buckets merged from other threads or shards can differ in the last rounded digit, since their values are summed in a
+ * different order.
+ * @author abhi
+ */
+public class TrendStats {
+	public static final long DEFAULT_BUCKET = 60 * 60 * 1000L; // An hour
+	public static final int DEFAULT_WINDOW = 24; // A day of hourly buckets
+	
+	// Series: the RunAggregate series of each band, then the average RxFCompLNAOffset of each LNA set
+	public static final int POWER_SERIES = ExtractionEngine.POWER_BANDS * RunAggregate.SERIES;
+	public static final int SERIES = POWER_SERIES + ExtractionEngine.LNA_SETS;
+	
+	// Layout of each bucket
+	private static final int COUNT = 0;
+	private static final int SUM = 1;
+	private static final int SUM_SQ = SUM + SERIES;
+	private static final int BUCKET_LENGTH = SUM_SQ + SERIES;
+	
+	private final long bucket; // Length of a bucket in ms
+	private final int window; // Buckets in the sliding window
+	private final TreeMap<Long, double[]> buckets = new TreeMap<Long, double[]>(); // By start time / bucket
+	private long retention = 0; // Buckets this much older than the newest are expired, in ms, 0 to keep every bucket
+	
+	public TrendStats() {
+		this(DEFAULT_BUCKET, DEFAULT_WINDOW);
+	}
+	
+	/**
+	 * @param bucket: Length of a bucket in ms
+	 * @param window: Number of buckets in the sliding window
+	 */
+	public TrendStats(long bucket, int window) {
+		if (bucket <= 0 || window <= 0) {
+			throw new IllegalArgumentException("The trend bucket and window must be positive: " + bucket + " ms, " + window + " buckets");
+		}
+		this.bucket = bucket;
+		this.window = window;
+	}
+	
+	public long getBucket() {
+		return bucket;
+	}
+	
+	public int getWindow() {
+		return window;
+	}
+	
+	/**
+	 * Expires buckets older than retention ms before the newest bucket as logs are added, 0 to keep every bucket.
+	 */
+	public void setRetention(long retention) {
+		this.retention = retention;
+		expire();
+	}
+	
+	/**
+	 * Adds the values of a log to the bucket of its time. Quarantined logs and logs of an unknown time are left out.
+	 */
+	public void add(LogRecord record) {
+		if (record.corrupt || record.time == 0) {
+			return;
+		}
+		double[] sums = bucket(Math.floorDiv(record.time, bucket));
+		if (sums == null) {
+			return; // Older than the retention
+		}
+		sums[COUNT]++;
+		int s = 0;
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int series = 0; series < RunAggregate.SERIES; series++) {
+				add(sums, s++, record.power(k, series));
+			}
+		}
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			add(sums, s++, lnaAverage(record, set));
+		}
+	}
+	
+	private static void add(double[] sums, int series, double value) {
+		sums[SUM + series] += value;
+		sums[SUM_SQ + series] += value * value;
+	}
+	
+	/**
+	 * Returns the average RxFCompLNAOffset of an LNA set in record, over its devices and RxLvls.
+	 */
+	private static double lnaAverage(LogRecord record, int set) {
+		int devices = set < 2 ? RunAggregate.DEVICES : 1;
+		long sum = 0;
+		for (int d = 0; d < devices; d++) {
+			for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+				sum += record.lna[LogRecord.lnaIndex(set, d, r)];
+			}
+		}
+		return (double) sum / (devices * RunAggregate.RX_LVLS);
+	}
+	
+	/**
+	 * Returns the sums of a bucket, created if needed, or null if it is older than the retention.
+	 */
+	private double[] bucket(long index) {
+		double[] sums = buckets.get(index);
+		if (sums == null) {
+			if (retention > 0 && !buckets.isEmpty() && index < buckets.lastKey() - retention / bucket) {
+				return null;
+			}
+			sums = new double[BUCKET_LENGTH];
+			buckets.put(index, sums);
+			expire();
+		}
+		return sums;
+	}
+	
+	/**
+	 * Drops the buckets older than the retention, oldest first, so each bucket is expired only once.
+	 */
+	private void expire() {
+		if (retention <= 0) {
+			return;
+		}
+		while (!buckets.isEmpty() && buckets.firstKey() < buckets.lastKey() - retention / bucket) {
+			buckets.pollFirstEntry();
+		}
+	}
+	
+	/**
+	 * Adds all the buckets of other to this trend. other is not changed.
+	 * @throws IllegalArgumentException if other has buckets of another length
+	 */
+	public void merge(TrendStats other) {
+		if (other.bucket != bucket) {
+			throw new IllegalArgumentException("Cannot merge trend buckets of " + other.bucket + " ms into buckets of " + bucket + " ms");
+		}
+		for (Map.Entry<Long, double[]> e : other.buckets.entrySet()) {
+			double[] sums = bucket(e.getKey());
+			if (sums != null) {
+				for (int i = 0; i < BUCKET_LENGTH; i++) {
+					sums[i] += e.getValue()[i];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the trend to out, to be read back with read, for example in another process.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeLong(bucket);
+		out.writeInt(window);
+		out.writeInt(buckets.size());
+		for (Map.Entry<Long, double[]> e : buckets.entrySet()) {
+			out.writeLong(e.getKey());
+			for (double value : e.getValue()) {
+				out.writeDouble(value);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a trend written by write.
+	 */
+	public static TrendStats read(DataInputStream in) throws IOException {
+		TrendStats trend = new TrendStats(in.readLong(), in.readInt());
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			long index = in.readLong();
+			double[] sums = new double[BUCKET_LENGTH];
+			for (int j = 0; j < BUCKET_LENGTH; j++) {
+				sums[j] = in.readDouble();
+			}
+			trend.buckets.put(index, sums);
+		}
+		return trend;
+	}
+	
+	/**
+	 * Returns true if no log has been added to a bucket.
+	 */
+	public boolean isEmpty() {
+		return buckets.isEmpty();
+	}
+	
+	/**
+	 * Returns a Point for every bucket with logs, in time order, with the statistics of the bucket and of the sliding window
+	 * ending with it.
+	 */
+	public List<Point> points() {
+		List<Point> points = new ArrayList<Point>(buckets.size());
+		ArrayDeque<Map.Entry<Long, double[]>> inWindow = new ArrayDeque<Map.Entry<Long, double[]>>();
+		double[] windowSums = new double[BUCKET_LENGTH];
+		for (Map.Entry<Long, double[]> e : buckets.entrySet()) {
+			long index = e.getKey();
+			while (!inWindow.isEmpty() && inWindow.peekFirst().getKey() <= index - window) {
+				double[] leaving = inWindow.pollFirst().getValue();
+				for (int i = 0; i < BUCKET_LENGTH; i++) {
+					windowSums[i] -= leaving[i];
+				}
+			}
+			if (inWindow.isEmpty()) {
+				windowSums = new double[BUCKET_LENGTH]; // Clears the rounding left by the subtractions
+			}
+			for (int i = 0; i < BUCKET_LENGTH; i++) {
+				windowSums[i] += e.getValue()[i];
+			}
+			inWindow.addLast(e);
+			points.add(new Point(index * bucket, e.getValue(), windowSums));
+		}
+		return points;
+	}
+	
+	/**
+	 * Statistics of one bucket and of the sliding window ending with it.
+	 */
+	public static class Point {
+		public final long start; // Start of the bucket, ms since the epoch
+		public final int logs; // Logs in the bucket
+		public final int windowLogs; // Logs in the window
+		private final double[] means = new double[SERIES];
+		private final double[] windowMeans = new double[SERIES];
+		private final double[] windowStdDevs = new double[SERIES];
+		
+		Point(long start, double[] sums, double[] windowSums) {
+			this.start = start;
+			logs = (int) sums[COUNT];
+			windowLogs = (int) windowSums[COUNT];
+			for (int s = 0; s < SERIES; s++) {
+				means[s] = Analyze.round(sums[SUM + s] / logs, 2);
+				double mean = windowSums[SUM + s] / windowLogs;
+				windowMeans[s] = Analyze.round(mean, 2);
+				windowStdDevs[s] = Analyze.round(Math.sqrt(Math.max(0, windowSums[SUM_SQ + s] / windowLogs - mean * mean)), 2);
+			}
+		}
+		
+		/**
+		 * Returns the mean of a series over the bucket, rounded like Analyze.getStats.
+		 * @param series: See TrendStats.series and lnaSeries
+		 */
+		public double mean(int series) {
+			return means[series];
+		}
+		
+		public double windowMean(int series) {
+			return windowMeans[series];
+		}
+		
+		/**
+		 * Returns the population standard deviation of a series over the window.
+		 */
+		public double windowStdDev(int series) {
+			return windowStdDevs[series];
+		}
+	}
+	
+	/**
+	 * Returns the trend series of a RunAggregate series of a band.
+	 */
+	public static int series(int band, int series) {
+		return band * RunAggregate.SERIES + series;
+	}
+	
+	/**
+	 * Returns the trend series of the average RxFCompLNAOffset of an LNA set.
+	 */
+	public static int lnaSeries(int set) {
+		return POWER_SERIES + set;
+	}
+}
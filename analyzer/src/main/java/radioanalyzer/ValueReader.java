@@ -0,0 +1,167 @@
+package radioanalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the <V> values of a log straight from the bytes of its buffer into primitives, for extractPower and
+ * getRxFCompLNAOffset. No view, String or other object is created for a value, so reading one allocates nothing.
+ * A value is the text between the first <V> and the first </V> within WINDOW bytes of its key, like the values the legacy
+ * extractors take from a 40-character substring.
+ * @author abhi
+ */
+public class ValueReader {
+	public static final int WINDOW = 40; // A value follows its key within 40 characters
+	public static final long NOT_AN_INT = Long.MIN_VALUE; // Returned by readInt for a missing or malformed value
+	
+	// Powers of ten that are exact as doubles, see readDouble
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+			1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	private static final long MAX_EXACT = 1L << 53; // Larger mantissas are not all exact as doubles
+	
+	private ValueReader() {
+	}
+	
+	/**
+	 * Reads the value following index in section as a decimal number, with the same result as Double.parseDouble.
+	 * @param limit: Index in section the value must end before
+	 * @return the value, or NaN if it is missing or is not a decimal number such as -12.5 or 1e3.
+	 */
+	public static double readDouble(LogSection section, int index, int limit) {
+		ByteBuffer buf = section.buffer();
+		int from = window(section, index, limit);
+		int begin = from < 0 ? -1 : find(buf, from, from + WINDOW, '<', 'V', '>', -1);
+		int end = from < 0 ? -1 : find(buf, from, from + WINDOW, '<', '/', 'V', '>');
+		if (begin < 0 || end < begin + 3) {
+			return Double.NaN;
+		}
+		begin += 3;
+		
+		int i = begin;
+		boolean negative = false;
+		if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+			negative = buf.get(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0; // Digits of the mantissa, before and after the point
+		int significant = 0; // Digits from the first non-zero one on
+		int exponent = 0; // Power of ten the mantissa is multiplied by
+		boolean point = false;
+		for (; i < end; i++) {
+			byte b = buf.get(i);
+			if (b >= '0' && b <= '9') {
+				digits++;
+				if (mantissa != 0 || b != '0') {
+					significant++;
+				}
+				if (significant <= 18) {
+					mantissa = mantissa * 10 + (b - '0');
+					if (point) {
+						exponent--;
+					}
+				} else if (!point) {
+					exponent++; // Digits past 18 are only counted, the value is then parsed the slow way below
+				}
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return Double.NaN;
+		}
+		if (i < end && (buf.get(i) == 'e' || buf.get(i) == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+				negativeExponent = buf.get(i) == '-';
+				i++;
+			}
+			int exponentStart = i;
+			int e = 0;
+			for (; i < end && buf.get(i) >= '0' && buf.get(i) <= '9'; i++) {
+				e = Math.min(e * 10 + (buf.get(i) - '0'), 100000); // Far beyond any double, and cannot overflow
+			}
+			if (i == exponentStart) {
+				return Double.NaN;
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		if (i != end) {
+			return Double.NaN;
+		}
+		
+		// Both the mantissa and the power of ten are exact, so the one division or multiplication is correctly rounded,
+		// which is what Double.parseDouble returns. This covers every QDART value, such as -40.35 or 23.60.
+		if (mantissa == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		if (significant <= 18 && mantissa <= MAX_EXACT && exponent >= -22 && exponent <= 22) {
+			double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		byte[] bytes = new byte[end - begin]; // Too many digits or too large an exponent for the fast path
+		buf.get(begin, bytes);
+		return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+	}
+	
+	/**
+	 * Reads the value following index in section as a decimal int, with the same result as Integer.parseInt.
+	 * @param limit: Index in section the value must end before
+	 * @return the value, or NOT_AN_INT if it is missing or is not an int.
+	 */
+	public static long readInt(LogSection section, int index, int limit) {
+		ByteBuffer buf = section.buffer();
+		int from = window(section, index, limit);
+		int begin = from < 0 ? -1 : find(buf, from, from + WINDOW, '<', 'V', '>', -1);
+		int end = from < 0 ? -1 : find(buf, from, from + WINDOW, '<', '/', 'V', '>');
+		if (begin < 0 || end < begin + 3) {
+			return NOT_AN_INT;
+		}
+		begin += 3;
+		
+		int i = begin;
+		boolean negative = i < end && buf.get(i) == '-';
+		if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+			i++;
+		}
+		if (i == end || end - i > 10) {
+			return NOT_AN_INT;
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			byte b = buf.get(i);
+			if (b < '0' || b > '9') {
+				return NOT_AN_INT;
+			}
+			value = value * 10 + (b - '0');
+		}
+		value = negative ? -value : value;
+		return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? NOT_AN_INT : value;
+	}
+	
+	/**
+	 * Returns the absolute index of index in section, or -1 if a window of WINDOW bytes from it does not fit before limit.
+	 */
+	private static int window(LogSection section, int index, int limit) {
+		if (index < 0 || index + WINDOW > limit || limit > section.length()) {
+			return -1;
+		}
+		return section.absoluteStart() + index;
+	}
+	
+	/**
+	 * Returns the absolute index of the first occurrence in [from, to) of the 3 or 4 bytes a to d (d -1 for 3 bytes), or -1.
+	 */
+	private static int find(ByteBuffer buf, int from, int to, int a, int b, int c, int d) {
+		int length = d < 0 ? 3 : 4;
+		for (int i = from; i + length <= to; i++) {
+			if (buf.get(i) == a && buf.get(i + 1) == b && buf.get(i + 2) == c && (d < 0 || buf.get(i + 3) == d)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
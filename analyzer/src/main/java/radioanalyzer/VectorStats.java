@@ -0,0 +1,84 @@
+package radioanalyzer;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD statistics kernels on the incubating Vector API. Only used through StatsBackend, which falls back to the scalar
+ * kernels when the jdk.incubator.vector module is not available.
+ * @author abhi
+ */
+class VectorStats {
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	
+	// Bound on the relative difference between two orders of summing n values, as a multiple of n times the sum of their magnitudes
+	private static final double SUM_ERROR = 0x1p-52;
+	
+	private VectorStats() {}
+	
+	/**
+	 * Returns the same [Min, Max, Mean, Median, Std. Dev.] as Analyze.getStats(nums).
+	 * Summing in lanes changes the rounding error of the sums, so whenever the mean or standard deviation could round to a
+	 * different value within that error, it is computed by the scalar kernel instead.
+	 */
+	static double[] getStats(double[] nums) {
+		int n = nums.length;
+		int upper = DOUBLES.loopBound(n);
+		DoubleVector minV = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+		DoubleVector maxV = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+		DoubleVector sumV = DoubleVector.zero(DOUBLES);
+		DoubleVector absV = DoubleVector.zero(DOUBLES);
+		int i = 0;
+		for (; i < upper; i += DOUBLES.length()) {
+			DoubleVector v = DoubleVector.fromArray(DOUBLES, nums, i);
+			minV = minV.min(v);
+			maxV = maxV.max(v);
+			sumV = sumV.add(v);
+			absV = absV.add(v.abs());
+		}
+		double min = minV.reduceLanes(VectorOperators.MIN);
+		double max = maxV.reduceLanes(VectorOperators.MAX);
+		double sum = sumV.reduceLanes(VectorOperators.ADD);
+		double absSum = absV.reduceLanes(VectorOperators.ADD);
+		for (; i < n; i++) {
+			min = Math.min(min, nums[i]);
+			max = Math.max(max, nums[i]);
+			sum += nums[i];
+			absSum += Math.abs(nums[i]);
+		}
+		if (Double.isNaN(sum) || Double.isInfinite(absSum)) {
+			return Analyze.getStats(nums);
+		}
+		
+		double[] result = new double[5];
+		result[0] = min == 0 ? Analyze.findMin(nums) : min; // Which of 0.0 and -0.0 comes first
+		result[1] = max == 0 ? Analyze.findMax(nums) : max;
+		
+		double error = n * SUM_ERROR * absSum;
+		double mean = Analyze.round((sum - error) / n, 2);
+		if (mean != Analyze.round((sum + error) / n, 2)) {
+			mean = Analyze.findMean(nums);
+		}
+		result[2] = mean;
+		result[3] = Analyze.findMedian(nums);
+		
+		DoubleVector meanV = DoubleVector.broadcast(DOUBLES, mean);
+		DoubleVector squaresV = DoubleVector.zero(DOUBLES);
+		for (i = 0; i < upper; i += DOUBLES.length()) {
+			DoubleVector d = DoubleVector.fromArray(DOUBLES, nums, i).sub(meanV);
+			squaresV = d.fma(d, squaresV);
+		}
+		double squares = squaresV.reduceLanes(VectorOperators.ADD);
+		for (; i < n; i++) {
+			squares += (nums[i] - mean) * (nums[i] - mean);
+		}
+		error = (n + 2) * SUM_ERROR * squares; // Also covers fma and Math.pow rounding each square differently
+		double stdDev = Analyze.round(Math.sqrt(Math.max(0, squares - error) / n), 2);
+		if (stdDev != Analyze.round(Math.sqrt((squares + error) / n), 2)) {
+			stdDev = Analyze.findStdDev(nums);
+		}
+		result[4] = stdDev;
+		return result;
+	}
+}
@@ -0,0 +1,108 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Requests to a running AnalysisServer, for a directory of logs and for uploaded ones.
+ * @author abhi
+ */
+public class AnalysisServerTest {
+	@TempDir
+	File dir;
+	
+	private AnalysisServer server;
+	private String url;
+	private final HttpClient client = HttpClient.newHttpClient();
+	
+	@BeforeEach
+	public void start() throws IOException {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		server = new AnalysisServer(new InetSocketAddress("localhost", port), new ExtractionEngine(2, null), new ExtractionEngine(2, null));
+		server.start();
+		url = "http://localhost:" + port + "/analyze";
+	}
+	
+	@AfterEach
+	public void stop() {
+		server.stop();
+	}
+	
+	@Test
+	public void analyzesADirectory() throws Exception {
+		File logs = new File(dir, "logs");
+		logs.mkdir();
+		TestLogs.write(logs, "a.xml", TestLogs.log());
+		TestLogs.write(logs, "b.xml", TestLogs.log());
+		HttpResponse<String> response = get("?dir=" + URLEncoder.encode(logs.getPath(), StandardCharsets.UTF_8));
+		assertEquals(200, response.statusCode(), response.body());
+		assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+		assertTrue(response.body().contains("\"logs\": 2,"), response.body());
+		assertTrue(response.body().contains("\"Tx Max PA 3\": {\"min\": " + TestLogs.maxPower(0, 0) + ", \"max\": " + TestLogs.maxPower(0, 0)), response.body());
+		
+		HttpResponse<byte[]> workbook = client.send(HttpRequest.newBuilder(URI.create(url + "?format=xlsx&dir="
+				+ URLEncoder.encode(logs.getPath(), StandardCharsets.UTF_8))).build(), HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(200, workbook.statusCode());
+		assertEquals('P', workbook.body()[0]); // A workbook is a zip archive
+		assertEquals('K', workbook.body()[1]);
+	}
+	
+	@Test
+	public void analyzesAnUploadedLog() throws Exception {
+		File gz = new File(dir, "log.xml.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz.toPath()))) {
+			out.write(TestLogs.log().getBytes(StandardCharsets.ISO_8859_1));
+		}
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "?name=../log.xml.gz"))
+				.POST(HttpRequest.BodyPublishers.ofFile(gz.toPath())).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode(), response.body());
+		assertTrue(response.body().contains("\"logs\": 1,"), response.body());
+	}
+	
+	@Test
+	public void rejectsBadRequests() throws Exception {
+		assertEquals(400, get("").statusCode());
+		assertEquals(400, get("?dir=" + URLEncoder.encode(new File(dir, "none").getPath(), StandardCharsets.UTF_8)).statusCode());
+		assertEquals(400, get("?dir=" + URLEncoder.encode(dir.getPath(), StandardCharsets.UTF_8)).statusCode(), "no logs");
+		HttpResponse<String> delete = client.send(HttpRequest.newBuilder(URI.create(url)).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(405, delete.statusCode());
+	}
+	
+	@Test
+	public void escapesLogNamesAndDefects() {
+		LogRecord[] records = {LogRecord.quarantined("a\"b\\c\td\u0001.xml", 0, "invalid entry \"x\ny\"")};
+		RunAggregate aggregate = new RunAggregate();
+		aggregate.addAll(records);
+		String json = AnalysisServer.toJson(aggregate, records);
+		assertTrue(json.contains("\"quarantine\": [{\"log\": \"a\\\"b\\\\c\\u0009d\\u0001.xml\", \"reason\": \"invalid entry \\\"x\\u000ay\\\"\"}],"), json);
+		for (char c : json.toCharArray()) {
+			assertTrue(c >= 0x20 || c == '\n', json);
+		}
+	}
+	
+	private HttpResponse<String> get(String query) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(URI.create(url + query)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,104 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The bootstrap intervals must depend only on the logs and the seed, not on how many threads resample them.
+ * @author abhi
+ */
+public class BootstrapCITest {
+	private static ForkJoinPool single;
+	private static ForkJoinPool parallel;
+	private static LogRecord[] records;
+	
+	@BeforeAll
+	public static void setUp() {
+		single = new ForkJoinPool(1);
+		parallel = new ForkJoinPool(4);
+		Random random = new Random(1);
+		records = new LogRecord[300];
+		for (int i = 0; i < records.length; i++) {
+			records[i] = TestLogs.record(random, "log" + i + ".xml", 0);
+		}
+	}
+	
+	@AfterAll
+	public static void tearDown() {
+		single.shutdown();
+		parallel.shutdown();
+	}
+	
+	@Test
+	public void givesTheSameIntervalsOnAnyNumberOfThreads() {
+		BootstrapCI expected = new BootstrapCI(records, 200, 7, 0.95, single);
+		BootstrapCI actual = new BootstrapCI(records, 200, 7, 0.95, parallel);
+		BootstrapCI again = new BootstrapCI(records, 200, 7, 0.95, parallel);
+		assertArrayEquals(intervals(expected), intervals(actual));
+		assertArrayEquals(intervals(actual), intervals(again));
+		assertFalse(Arrays.equals(intervals(expected), intervals(new BootstrapCI(records, 200, 8, 0.95, parallel))), "another seed");
+	}
+	
+	@Test
+	public void boundsTheStatisticsOfTheRun() {
+		RunAggregate aggregate = new RunAggregate();
+		aggregate.addAll(records);
+		BootstrapCI ci = new BootstrapCI(records, BootstrapCI.DEFAULT_RESAMPLES, BootstrapCI.DEFAULT_SEED, BootstrapCI.DEFAULT_CONFIDENCE, parallel);
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < RunAggregate.SERIES; s++) {
+				double mean = aggregate.powerStats(k, s)[2];
+				double[] interval = ci.powerInterval(k, s, BootstrapCI.MEAN);
+				assertTrue(interval[0] <= mean && mean <= interval[1], mean + " in " + Arrays.toString(interval));
+				double[] median = ci.powerInterval(k, s, BootstrapCI.MEDIAN);
+				assertTrue(median[0] <= median[1]);
+			}
+		}
+	}
+	
+	@Test
+	public void givesZeroIntervalsWithoutLogs() {
+		LogRecord[] quarantined = {LogRecord.quarantined("a.xml", 0, "missing ESC LTE B2")};
+		BootstrapCI ci = new BootstrapCI(quarantined, 10, 1, 0.95, single);
+		assertArrayEquals(new double[2], ci.powerInterval(0, 0, BootstrapCI.MEAN));
+		assertArrayEquals(new double[2], ci.lnaInterval(0, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new BootstrapCI(records, 0, 1, 0.95, single));
+		assertThrows(IllegalArgumentException.class, () -> new BootstrapCI(records, 10, 1, 1, single));
+	}
+	
+	/**
+	 * Returns every interval of ci, in a fixed order.
+	 */
+	private static double[] intervals(BootstrapCI ci) {
+		double[] all = new double[(ExtractionEngine.POWER_BANDS * RunAggregate.SERIES * 3 + ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES) * 2];
+		int i = 0;
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < RunAggregate.SERIES; s++) {
+				for (int stat : new int[] {BootstrapCI.MEAN, BootstrapCI.MEDIAN, BootstrapCI.STD_DEV}) {
+					double[] interval = ci.powerInterval(k, s, stat);
+					all[i++] = interval[0];
+					all[i++] = interval[1];
+				}
+			}
+		}
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			for (int d = 0; d < RunAggregate.DEVICES; d++) {
+				for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+					double[] interval = ci.lnaInterval(set, d, r);
+					all[i++] = interval[0];
+					all[i++] = interval[1];
+				}
+			}
+		}
+		return all;
+	}
+}
@@ -0,0 +1,107 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Reading limits files, the columns their globs match, and the histogram cells of the values.
+ * @author abhi
+ */
+public class ComplianceLimitsTest {
+	@TempDir
+	File dir;
+	
+	@Test
+	public void matchesGlobsToColumns() throws IOException {
+		ComplianceLimits limits = read("# Every band", "", "*.aptMin0 -60 -40", "B17div.lna.* -40 40 8");
+		List<String> names = names(limits);
+		assertEquals(Arrays.asList("B2.aptMin0", "B4.aptMin0", "B5.aptMin0", "B12.aptMin0", "B13.aptMin0", "B17.aptMin0"), names.subList(0, 6));
+		assertEquals(Arrays.asList("B17div.lna.d0.r0", "B17div.lna.d0.r1", "B17div.lna.d0.r2", "B17div.lna.d0.r3", "B17div.lna.d0.r4",
+				"B17div.lna.d0.r5"), names.subList(6, 12));
+		assertEquals(12, limits.size());
+		assertEquals(ComplianceLimits.DEFAULT_BINS, limits.bins(0));
+		assertEquals(8, limits.bins(6));
+		assertEquals(9, limits.section(6));
+	}
+	
+	@Test
+	public void narrowsEarlierLimits() throws IOException {
+		ComplianceLimits limits = read("*.txMax3 20 30", "B13.txMax3 21 25 5");
+		assertEquals(6, limits.size());
+		int b13 = names(limits).indexOf("B13.txMax3");
+		assertEquals(21, limits.low(b13));
+		assertEquals(25, limits.high(b13));
+		assertEquals(5, limits.bins(b13));
+		assertEquals(20, limits.low(b13 - 1));
+	}
+	
+	@Test
+	public void binsValues() throws IOException {
+		ComplianceLimits limits = read("B2.txMax3 20 30 10");
+		assertEquals(0, limits.cell(0, 19.99));
+		assertEquals(1, limits.cell(0, 20));
+		assertEquals(1, limits.cell(0, 20.99));
+		assertEquals(2, limits.cell(0, 21));
+		assertEquals(10, limits.cell(0, 30)); // HIGH passes, in the last bin
+		assertEquals(11, limits.cell(0, 30.01));
+		assertEquals(11, limits.cell(0, Double.NaN));
+		assertEquals(1.0, limits.binWidth(0));
+	}
+	
+	@Test
+	public void rejectsMalformedLines() {
+		assertMalformed("line 2", "B2.txMax3 20 30", "B3.txMax3 20 30");
+		assertMalformed("line 1", "B2.txMax3 20");
+		assertMalformed("line 1", "B2.txMax3 20 thirty");
+		assertMalformed("line 1", "B2.txMax3 30 20");
+		assertMalformed("line 1", "B2.txMax3 20 30 0");
+		assertMalformed("line 1", "corrupt 0 1"); // Not a value
+	}
+	
+	@Test
+	public void talliesPassingLogs() throws IOException {
+		ComplianceLimits limits = read("B2.txMax3 20 30 10", "B17div.lna.d0.r0 -40 40");
+		ComplianceTally tally = new ComplianceTally(limits);
+		LogRecord log = ExtractionEngine.extract(TestLogs.write(dir, "log.xml", TestLogs.log()));
+		assertEquals(-1, tally.add(log));
+		assertEquals(-1, tally.add(LogRecord.quarantined("bad.xml", 0, "missing ESC LTE B2")));
+		
+		ComplianceLimits strict = read("B2.txMax3 " + (TestLogs.maxPower(0, 0) + 1) + " 30");
+		ComplianceTally failed = new ComplianceTally(strict);
+		assertEquals(0, failed.add(log));
+		assertTrue(strict.violation(log, 0).startsWith("B2.txMax3 20.0 below"), strict.violation(log, 0));
+		
+		failed.merge(tally);
+		assertEquals(1, tally.getLogs());
+		assertEquals(1, tally.getPassed());
+		assertEquals(2, failed.getLogs());
+		assertEquals(1, failed.getPassed());
+	}
+	
+	private ComplianceLimits read(String... lines) throws IOException {
+		return ComplianceLimits.read(TestLogs.write(dir, "limits.txt", String.join("\n", lines)));
+	}
+	
+	private void assertMalformed(String where, String... lines) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(lines));
+		assertTrue(e.getMessage().contains(where), e.getMessage());
+	}
+	
+	private static List<String> names(ComplianceLimits limits) {
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < limits.size(); i++) {
+			names.add(limits.name(i));
+		}
+		return names;
+	}
+}
@@ -0,0 +1,112 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writing the extraction cache and reading it back, and the logs it no longer matches.
+ * @author abhi
+ */
+public class ExtractionCacheTest {
+	@TempDir
+	File dir;
+	
+	@Test
+	public void readsBackWhatWasSaved() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		File bad = TestLogs.write(dir, "bad.xml", TestLogs.log(1, -1));
+		File archive = TestLogs.write(dir, "logs.zip", "not read");
+		LogRecord record = ExtractionEngine.extract(log);
+		LogRecord quarantined = ExtractionEngine.extract(bad);
+		
+		File file = new File(dir, "cache/extraction.cache");
+		ExtractionCache cache = new ExtractionCache(file);
+		cache.put(log, log.length(), log.lastModified(), record);
+		cache.put(bad, bad.length(), bad.lastModified(), quarantined);
+		cache.put(archive, archive.length(), archive.lastModified(), "a/b.xml", record);
+		cache.save();
+		
+		ExtractionCache read = new ExtractionCache(file);
+		assertRecord(record, read.get(log));
+		assertRecord(quarantined, read.get(bad));
+		assertRecord(record, read.get(archive, "a/b.xml"));
+		assertNull(read.get(archive, "a/c.xml"));
+	}
+	
+	@Test
+	public void missesChangedLogs() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		log.setLastModified(1_600_000_000_000L);
+		ExtractionCache cache = new ExtractionCache(new File(dir, "extraction.cache"));
+		cache.put(log, log.length(), log.lastModified(), ExtractionEngine.extract(log));
+		assertNotNull(cache.get(log));
+		
+		log.setLastModified(1_600_000_001_000L);
+		assertNull(cache.get(log), "touched");
+		log.setLastModified(1_600_000_000_000L);
+		Files.write(log.toPath(), new byte[] {'x'}, StandardOpenOption.APPEND);
+		log.setLastModified(1_600_000_000_000L);
+		assertNull(cache.get(log), "grown");
+	}
+	
+	@Test
+	public void missesLogsChangedWhileTheyWereRead() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		long size = log.length(); // Stamp from before the read
+		long modified = log.lastModified();
+		LogRecord record = ExtractionEngine.extract(log);
+		Files.write(log.toPath(), new byte[] {'x'}, StandardOpenOption.APPEND);
+		
+		ExtractionCache cache = new ExtractionCache(new File(dir, "extraction.cache"));
+		cache.put(log, size, modified, record);
+		assertNull(cache.get(log));
+	}
+	
+	@Test
+	public void startsEmptyFromAnUnreadableCache() throws IOException {
+		File file = TestLogs.write(dir, "extraction.cache", "RAC1 but not really");
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		assertNull(new ExtractionCache(file).get(log));
+	}
+	
+	@Test
+	public void startsEmptyFromATruncatedCache() throws IOException {
+		File first = TestLogs.write(dir, "first.xml", TestLogs.log());
+		File second = TestLogs.write(dir, "second.xml", TestLogs.log());
+		File file = new File(dir, "extraction.cache");
+		ExtractionCache cache = new ExtractionCache(file);
+		cache.put(first, first.length(), first.lastModified(), ExtractionEngine.extract(first));
+		cache.put(second, second.length(), second.lastModified(), ExtractionEngine.extract(second));
+		cache.save();
+		
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 10));
+		ExtractionCache truncated = new ExtractionCache(file);
+		assertNull(truncated.get(first));
+		assertNull(truncated.get(second));
+	}
+	
+	private static void assertRecord(LogRecord expected, LogRecord actual) {
+		assertNotNull(actual);
+		assertEquals(expected.name, actual.name);
+		assertEquals(expected.time, actual.time);
+		assertEquals(expected.defect, actual.defect);
+		assertEquals(expected.corrupt, actual.corrupt);
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			assertArrayEquals(expected.maxPowers[k], actual.maxPowers[k]);
+			assertArrayEquals(expected.minPowers[k], actual.minPowers[k]);
+		}
+		assertArrayEquals(expected.lna, actual.lna);
+	}
+}
@@ -0,0 +1,132 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Extraction of plain, gzip compressed and zipped logs, and the quarantine of malformed and half-written ones.
+ * @author abhi
+ */
+public class ExtractionEngineTest {
+	@TempDir
+	File dir;
+	
+	@Test
+	public void extractsEveryValue() throws IOException {
+		LogRecord record = ExtractionEngine.extract(TestLogs.write(dir, "log.xml", TestLogs.log()));
+		assertFalse(record.corrupt, record.defect);
+		assertEquals("log.xml", record.name);
+		assertValues(record);
+	}
+	
+	@Test
+	public void extractsCompressedAndZippedLogsAlike() throws IOException {
+		byte[] log = TestLogs.log().getBytes(StandardCharsets.ISO_8859_1);
+		File gz = new File(dir, "log.xml.gz");
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+			out.write(log);
+		}
+		File zip = new File(dir, "logs.zip");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+			for (String name : new String[] {"a.xml", "b.xml", "c.xml"}) {
+				out.putNextEntry(new ZipEntry(name));
+				out.write(log);
+				out.closeEntry();
+			}
+			out.putNextEntry(new ZipEntry("d.xml.gz"));
+			GZIPOutputStream entry = new GZIPOutputStream(out);
+			entry.write(log);
+			entry.finish();
+			out.closeEntry();
+		}
+		
+		try (ExtractionEngine engine = new ExtractionEngine(2, null)) {
+			LogRecord[] records = engine.extractAll(new File[] {gz, zip});
+			assertEquals(5, records.length);
+			assertEquals("log.xml.gz", records[0].name);
+			assertEquals("logs.zip/c.xml", records[3].name);
+			assertEquals("logs.zip/d.xml.gz", records[4].name);
+			for (LogRecord record : records) {
+				assertFalse(record.corrupt, record.defect);
+				assertValues(record);
+			}
+		}
+	}
+	
+	@Test
+	public void readsOnlyTheFirstLineOfAStream() throws IOException {
+		String log = TestLogs.log();
+		byte[] bytes = (log + "\r\n" + log).getBytes(StandardCharsets.ISO_8859_1);
+		MarkerIndex markers = LogCondenser.index(new ByteArrayInputStream(bytes));
+		assertEquals(log.length(), markers.text().length());
+		assertValues(ExtractionEngine.extract("stream.xml", 0, new ByteArrayInputStream(bytes), null));
+	}
+	
+	@Test
+	public void quarantinesMalformedLogs() throws IOException {
+		LogRecord missing = ExtractionEngine.extract(TestLogs.write(dir, "missing.xml", TestLogs.log(1, -1)));
+		assertTrue(missing.corrupt);
+		assertEquals("missing ESC LTE B4", missing.defect);
+		
+		LogRecord malformed = ExtractionEngine.extract(TestLogs.write(dir, "malformed.xml", TestLogs.log(-1, 7)));
+		assertTrue(malformed.corrupt);
+		assertEquals("malformed RxFCompLNAOffset in ESC LTE B12 Diversity", malformed.defect);
+		assertEquals(TestLogs.maxPower(0, 0), malformed.maxPowers[0][0]); // The other values are still extracted
+		
+		String log = TestLogs.log();
+		LogRecord cut = ExtractionEngine.extract(TestLogs.write(dir, "cut.xml", log.substring(0, log.length() / 2)));
+		assertTrue(cut.corrupt);
+	}
+	
+	@Test
+	public void leavesHalfWrittenLogsToBeReadAgain() throws IOException {
+		String log = TestLogs.log();
+		File whole = TestLogs.write(dir, "whole.xml", log);
+		File half = TestLogs.write(dir, "half.xml", log.substring(0, log.indexOf("Run_RSB_Pcell_Tx_LO_Cal")));
+		File missing = TestLogs.write(dir, "missing.xml", TestLogs.log(1, -1));
+		ExtractionCache cache = new ExtractionCache(new File(dir, "extraction.cache"));
+		try (ExtractionEngine engine = new ExtractionEngine(2, cache)) {
+			LogRecord[][] records = engine.extractReadable(new File[] {whole, half, missing});
+			assertNotNull(records[0]);
+			assertNull(records[1], "not fully written");
+			assertTrue(records[2][0].corrupt, "finished, but missing a section");
+		}
+		assertNotNull(cache.get(whole));
+		assertNull(cache.get(half));
+	}
+	
+	private static void assertValues(LogRecord record) {
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int slot = 0; slot < 4; slot++) {
+				assertEquals(TestLogs.maxPower(k, slot), record.maxPowers[k][slot]);
+				assertEquals(TestLogs.minPower(k, slot), record.minPowers[k][slot]);
+			}
+		}
+		int[] lna = new int[record.lna.length];
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			for (int d = 0; d < TestLogs.devices(set); d++) {
+				for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+					lna[LogRecord.lnaIndex(set, d, r)] = TestLogs.lna(set, d, r);
+				}
+			}
+		}
+		assertArrayEquals(lna, record.lna);
+	}
+}
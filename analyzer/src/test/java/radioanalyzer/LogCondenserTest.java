@@ -0,0 +1,74 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The sections LogCondenser.condense splits a log into, and the defect it reports for a log missing one.
+ * @author abhi
+ */
+public class LogCondenserTest {
+	@Test
+	public void splitsAValidLogIntoItsSections() {
+		MarkerIndex markers = index(TestLogs.log());
+		LogSection[] sections = new LogSection[ExtractionEngine.LNA_SETS];
+		assertNull(LogCondenser.condense(markers, sections));
+		for (int s = 0; s < sections.length; s++) {
+			String name = LogCondenser.sectionName(s).replace(" Diversity", "");
+			assertTrue(sections[s].toString().startsWith(name + "</ExtendedName>"), LogCondenser.sectionName(s));
+		}
+		assertFalse(sections[5].toString().contains("ESC LTE B5"), "B17 ends where B5 Diversity starts");
+		assertFalse(sections[9].toString().contains("Run_RSB_Pcell_Tx_LO_Cal"));
+		assertTrue(LogCondenser.isFinished(markers));
+	}
+	
+	@Test
+	public void reportsTheFirstMissingSection() {
+		assertEquals("missing ESC LTE B2", condense(TestLogs.log(0, -1)));
+		assertEquals("missing ESC LTE B4", condense(TestLogs.log(1, -1)));
+		assertEquals("missing ESC LTE B5 Diversity", condense(TestLogs.log(6, -1)));
+		assertEquals("missing ESC LTE B13 Diversity", condense(TestLogs.log(8, -1)));
+		assertEquals("missing ESC LTE B17 Diversity", condense(TestLogs.log(9, -1)));
+	}
+	
+	@Test
+	public void reportsALogCutShort() {
+		String log = TestLogs.log();
+		String cut = log.substring(0, log.indexOf("Run_RSB_Pcell_Tx_LO_Cal"));
+		assertEquals("missing Run_RSB_Pcell_Tx_LO_Cal", condense(cut));
+		assertFalse(LogCondenser.isFinished(index(cut)));
+		
+		String half = log.substring(0, log.lastIndexOf("<Node><ExtendedName>ESC LTE B13"));
+		assertEquals("missing ESC LTE B13 Diversity", condense(half));
+		assertFalse(LogCondenser.isFinished(index(half)));
+	}
+	
+	@Test
+	public void scansOnlyTheFirstLine() {
+		String log = TestLogs.log();
+		int end = log.indexOf("<Node><ExtendedName>ESC LTE B17");
+		String split = log.substring(0, end) + "\r\n" + log.substring(end);
+		assertEquals("missing ESC LTE B17", condense(split));
+	}
+	
+	private static String condense(String log) {
+		return LogCondenser.condense(index(log), new LogSection[ExtractionEngine.LNA_SETS]);
+	}
+	
+	private static MarkerIndex index(String log) {
+		try {
+			return LogCondenser.index(new ByteArrayInputStream(log.getBytes(StandardCharsets.ISO_8859_1)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The logs LogWatcher adds to its aggregate as a directory changes: each log once, and only once it has settled.
+ * @author abhi
+ */
+public class LogWatcherTest {
+	private static final long DEBOUNCE = 1000;
+	
+	@TempDir
+	File dir;
+	
+	@Test
+	public void addsNewLogsToTheReport() throws IOException {
+		TestLogs.write(dir, "a.xml", TestLogs.log());
+		RunAggregate aggregate = new RunAggregate();
+		try (ExtractionEngine engine = new ExtractionEngine(2, null); LogWatcher watcher = watcher(engine, 0, aggregate)) {
+			watcher.scan();
+			assertEquals(1, aggregate.getLogs());
+			assertTrue(Analyze.reportFile(dir).isFile());
+			
+			TestLogs.write(dir, "b.xml", TestLogs.log());
+			TestLogs.write(dir, "c.xml", TestLogs.log(1, -1));
+			watcher.scan();
+			assertEquals(3, aggregate.getLogs());
+			assertEquals(1, aggregate.getCorruptLogs());
+			assertEquals(TestLogs.maxPower(0, 0), aggregate.powerStats(0, RunAggregate.TX_MAX_3)[0]);
+			watcher.scan();
+			assertEquals(3, aggregate.getLogs(), "nothing new");
+		}
+		try (ResultsStore store = new ResultsStore(Analyze.storeFile(dir))) {
+			assertEquals(3, store.size());
+			assertEquals(2, store.blocks()); // One per update
+		}
+		assertTrue(Analyze.summaryFile(dir).isFile());
+	}
+	
+	@Test
+	public void countsARewrittenLogOnce() throws IOException {
+		File log = TestLogs.write(dir, "a.xml", TestLogs.log());
+		TestLogs.write(dir, "b.xml", TestLogs.log());
+		RunAggregate aggregate = new RunAggregate();
+		try (ExtractionEngine engine = new ExtractionEngine(2, null); LogWatcher watcher = watcher(engine, 0, aggregate)) {
+			watcher.scan();
+			assertEquals(2, aggregate.getLogs());
+			
+			TestLogs.write(dir, "a.xml", TestLogs.log(-1, 7));
+			log.setLastModified(log.lastModified() + 1000);
+			watcher.scan();
+			assertEquals(2, aggregate.getLogs());
+			assertEquals(0, aggregate.getCorruptLogs());
+		}
+	}
+	
+	@Test
+	public void waitsForALogToSettle() throws Exception {
+		String whole = TestLogs.log();
+		TestLogs.write(dir, "a.xml", whole.substring(0, whole.length() / 2));
+		RunAggregate aggregate = new RunAggregate();
+		try (ExtractionEngine engine = new ExtractionEngine(2, null); LogWatcher watcher = watcher(engine, DEBOUNCE, aggregate)) {
+			watcher.scan();
+			assertEquals(0, aggregate.getLogs(), "just written");
+			
+			Thread.sleep(DEBOUNCE / 2);
+			TestLogs.write(dir, "a.xml", whole.substring(0, whole.indexOf("Run_RSB_Pcell_Tx_LO_Cal") + 30)); // Passes isFinished
+			watcher.scan();
+			Thread.sleep(DEBOUNCE / 2 + 100);
+			watcher.scan();
+			assertEquals(0, aggregate.getLogs(), "written to again within the debounce time");
+			
+			TestLogs.write(dir, "a.xml", whole);
+			watcher.scan();
+			Thread.sleep(DEBOUNCE + 100);
+			watcher.scan();
+			assertEquals(1, aggregate.getLogs());
+			assertEquals(0, aggregate.getCorruptLogs());
+		}
+	}
+	
+	@Test
+	public void addsLogsMovedInAtOnce() throws IOException {
+		RunAggregate aggregate = new RunAggregate();
+		try (ExtractionEngine engine = new ExtractionEngine(2, null); LogWatcher watcher = watcher(engine, DEBOUNCE, aggregate)) {
+			watcher.scan();
+			assertFalse(Analyze.reportFile(dir).exists(), "no logs yet");
+			
+			File log = TestLogs.write(dir, "a.xml", TestLogs.log());
+			log.setLastModified(System.currentTimeMillis() - 2 * DEBOUNCE);
+			watcher.scan();
+			assertEquals(1, aggregate.getLogs());
+		}
+	}
+	
+	private LogWatcher watcher(ExtractionEngine engine, long debounce, RunAggregate aggregate) throws IOException {
+		return new LogWatcher(dir, engine, null, new PipelineMetrics(), debounce, aggregate);
+	}
+}
@@ -0,0 +1,100 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The occurrences MarkerAutomaton finds in one pass must be exactly those of repeated String.indexOf calls.
+ * @author abhi
+ */
+public class MarkerAutomatonTest {
+	@Test
+	public void findsOverlappingMarkers() {
+		MarkerAutomaton automaton = new MarkerAutomaton(new String[] {"aba", "ab", "b", "bab", "abab"});
+		MarkerIndex index = scan(automaton, "xxababab");
+		assertArrayEquals(new int[] {2, 4}, positions(index, 0));
+		assertArrayEquals(new int[] {2, 4, 6}, positions(index, 1));
+		assertArrayEquals(new int[] {3, 5, 7}, positions(index, 2));
+		assertArrayEquals(new int[] {3, 5}, positions(index, 3));
+		assertArrayEquals(new int[] {2, 4}, positions(index, 4));
+	}
+	
+	@Test
+	public void findsWhatIndexOfFinds() {
+		String[] markers = {"ab", "abc", "bca", "c", "cab", "aa", "abcabc"};
+		MarkerAutomaton automaton = new MarkerAutomaton(markers);
+		Random random = new Random(1);
+		for (int run = 0; run < 200; run++) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = random.nextInt(40000); i > 0; i--) {
+				sb.append("abcx".charAt(random.nextInt(4)));
+			}
+			String text = sb.toString();
+			MarkerIndex index = scan(automaton, text);
+			for (int m = 0; m < markers.length; m++) {
+				assertArrayEquals(occurrences(text, markers[m]), positions(index, m), markers[m]);
+			}
+		}
+	}
+	
+	@Test
+	public void looksUpMarkersInViews() {
+		String text = "<N>Channel</N><V>20190</V><N>RxFCompLNAOffset</N><V>-3</V><N>Channel</N><V>20240</V>";
+		MarkerIndex index = LogCondenser.MARKERS.scan(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)), 0, text.length());
+		LogSection whole = index.text();
+		for (String marker : new String[] {"Channel", "RxFCompLNAOffset", "20190", "LNA", "23779"}) {
+			int m = LogCondenser.MARKERS.indexOf(marker);
+			for (int from = 0; from < text.length(); from += 7) {
+				for (int to = from; to <= text.length(); to += 11) {
+					LogSection view = whole.subSequence(from, to);
+					for (int start = -1; start <= view.length(); start += 3) {
+						assertEquals(view.indexOf(marker, start), index.indexOf(m, view, start), marker + " in [" + from + ", " + to + ") from " + start);
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void rejectsBadMarkerTables() {
+		assertThrows(IllegalArgumentException.class, () -> new MarkerAutomaton(new String[] {"ab", ""}));
+		assertThrows(IllegalArgumentException.class, () -> new MarkerAutomaton(new String[] {"ab", "ab"}));
+		assertThrows(IllegalArgumentException.class, () -> new MarkerAutomaton(new String[] {"\u00e9"}));
+		assertThrows(IllegalArgumentException.class, () -> LogCondenser.MARKERS.indexOf("ESC LTE B3"));
+	}
+	
+	private static MarkerIndex scan(MarkerAutomaton automaton, String text) {
+		return automaton.scan(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)), 0, text.length());
+	}
+	
+	private static int[] positions(MarkerIndex index, int m) {
+		int[] positions = new int[index.count(m)];
+		for (int k = 0; k < positions.length; k++) {
+			positions[k] = index.position(m, k);
+		}
+		return positions;
+	}
+	
+	/**
+	 * Returns the start of every occurrence of marker in text, overlapping ones included.
+	 */
+	private static int[] occurrences(String text, String marker) {
+		int[] occurrences = new int[16];
+		int n = 0;
+		for (int i = text.indexOf(marker); i >= 0; i = text.indexOf(marker, i + 1)) {
+			if (n == occurrences.length) {
+				occurrences = Arrays.copyOf(occurrences, n * 2);
+			}
+			occurrences[n++] = i;
+		}
+		return Arrays.copyOf(occurrences, n);
+	}
+}
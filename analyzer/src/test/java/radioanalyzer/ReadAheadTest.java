@@ -0,0 +1,76 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The read-ahead buffer pool, which bounds both the number of buffers and the bytes they hold.
+ * @author abhi
+ */
+public class ReadAheadTest {
+	private static final int MB = 1024 * 1024;
+	
+	@Test
+	public void waitsForAFreeBuffer() throws Exception {
+		ReadAhead.BufferPool pool = new ReadAhead.BufferPool(2, ReadAhead.MAX_BUFFER);
+		ByteBuffer first = pool.acquire(1000);
+		pool.acquire(1000);
+		assertEquals(1000, first.limit());
+		
+		CompletableFuture<ByteBuffer> third = CompletableFuture.supplyAsync(() -> acquire(pool, 1000));
+		assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+		pool.release(first);
+		assertSame(first, third.get(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void keepsTheBuffersWithinTheBudget() throws Exception {
+		ReadAhead.BufferPool pool = new ReadAhead.BufferPool(4, ReadAhead.MAX_BUFFER);
+		ByteBuffer big = pool.acquire(10 * MB);
+		assertEquals(16 * MB, big.capacity());
+		
+		CompletableFuture<ByteBuffer> next = CompletableFuture.supplyAsync(() -> acquire(pool, 2 * MB));
+		assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS), "a free slot, but no bytes left");
+		pool.release(big);
+		assertSame(big, next.get(5, TimeUnit.SECONDS));
+		assertEquals(2 * MB, big.limit());
+		assertFalse(pool.isIdle());
+		pool.release(big);
+		assertTrue(pool.isIdle());
+	}
+	
+	@Test
+	public void dropsFreeBuffersTooSmallForALog() throws Exception {
+		ReadAhead.BufferPool pool = new ReadAhead.BufferPool(4, ReadAhead.MAX_BUFFER);
+		ByteBuffer[] small = new ByteBuffer[4];
+		for (int i = 0; i < small.length; i++) {
+			small[i] = pool.acquire(4 * MB);
+		}
+		for (ByteBuffer buffer : small) {
+			pool.release(buffer);
+		}
+		ByteBuffer big = pool.acquire(ReadAhead.MAX_BUFFER);
+		assertEquals(ReadAhead.MAX_BUFFER, big.capacity());
+		pool.release(big);
+		assertTrue(pool.isIdle());
+		assertThrows(IllegalArgumentException.class, () -> new ReadAhead.BufferPool(1, ReadAhead.MAX_BUFFER - 1));
+	}
+	
+	private static ByteBuffer acquire(ReadAhead.BufferPool pool, int bytes) {
+		try {
+			return pool.acquire(bytes);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writing the results store a block at a time and reading every column of every log back.
+ * @author abhi
+ */
+public class ResultsStoreTest {
+	@TempDir
+	File dir;
+	
+	@Test
+	public void readsBackEveryValue() throws IOException {
+		File file = new File(dir, "results.store");
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		Random random = new Random(1);
+		try (ResultsStore.Writer writer = new ResultsStore.Writer(file)) {
+			for (int i = 0; i < ResultsStore.BLOCK_ROWS + 700; i++) {
+				LogRecord record = TestLogs.record(random, "log" + i + "_\u00e9.xml", i);
+				records.add(record);
+				writer.add(record);
+				if (i == ResultsStore.BLOCK_ROWS + 500) {
+					writer.flush(); // Like LogWatcher after each update
+				}
+			}
+		}
+		
+		try (ResultsStore store = new ResultsStore(file)) {
+			assertEquals(records.size(), store.size());
+			assertEquals(3, store.blocks());
+			int log = 0;
+			for (int b = 0; b < store.blocks(); b++) {
+				double[] values = new double[store.rows(b)];
+				for (int c = 0; c < ResultsStore.columns(); c++) {
+					store.read(b, c, values);
+					for (int row = 0; row < store.rows(b); row++) {
+						double expected = columns(records.get(log + row))[c];
+						assertEquals(expected, values[row], ResultsStore.columnName(c));
+						assertEquals(expected, store.get(b, c, row), ResultsStore.columnName(c));
+					}
+				}
+				for (int row = 0; row < store.rows(b); row++) {
+					assertEquals(records.get(log + row).name, store.name(b, row));
+				}
+				log += store.rows(b);
+			}
+		}
+	}
+	
+	@Test
+	public void leavesOutABlockStillBeingWritten() throws IOException {
+		File file = new File(dir, "results.store");
+		Random random = new Random(1);
+		try (ResultsStore.Writer writer = new ResultsStore.Writer(file)) {
+			for (int i = 0; i < 30; i++) {
+				writer.add(TestLogs.record(random, "log" + i + ".xml", i));
+				if (i == 19) {
+					writer.flush();
+				}
+			}
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 1);
+		}
+		try (ResultsStore store = new ResultsStore(file)) {
+			assertEquals(20, store.size());
+			assertEquals(1, store.blocks());
+		}
+	}
+	
+	@Test
+	public void namesEveryColumn() throws IOException {
+		for (int c = 0; c < ResultsStore.columns(); c++) {
+			assertEquals(c, ResultsStore.column(ResultsStore.columnName(c)));
+		}
+		assertEquals(ResultsStore.CORRUPT, ResultsStore.column("corrupt"));
+		assertThrows(IllegalArgumentException.class, () -> ResultsStore.column("B3.txMax3"));
+		assertThrows(IOException.class, () -> new ResultsStore(TestLogs.write(dir, "log.xml", TestLogs.log())));
+	}
+	
+	/**
+	 * Returns the values of record in the order of the columns of the store.
+	 */
+	private static double[] columns(LogRecord record) {
+		double[] values = new double[ResultsStore.columns()];
+		int c = 0;
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int slot = 0; slot < 4; slot++) {
+				values[c++] = record.maxPowers[k][slot];
+			}
+			for (int slot = 0; slot < 4; slot++) {
+				values[c++] = record.minPowers[k][slot];
+			}
+		}
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			for (int d = 0; d < TestLogs.devices(set); d++) {
+				for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+					values[c++] = record.lna[LogRecord.lnaIndex(set, d, r)];
+				}
+			}
+		}
+		values[c] = record.corrupt ? 1 : 0;
+		return values;
+	}
+}
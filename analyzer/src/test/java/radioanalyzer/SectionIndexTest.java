@@ -0,0 +1,74 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writing the section index sidecar of a log and reading it back, and extracting the selected sections from it.
+ * @author abhi
+ */
+public class SectionIndexTest {
+	@TempDir
+	File dir;
+	
+	@Test
+	public void readsBackWhatWasWritten() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		SectionIndex index = SectionIndex.of(LogCondenser.index(log));
+		index.write(log, log.length(), log.lastModified());
+		assertTrue(SectionIndex.isSidecar(SectionIndex.sidecar(log)));
+		
+		SectionIndex read = SectionIndex.read(log, log.length(), log.lastModified());
+		assertNotNull(read);
+		assertNull(read.defect);
+		for (int s = 0; s < ExtractionEngine.LNA_SETS; s++) {
+			assertEquals(index.start(s), read.start(s));
+			assertEquals(index.end(s), read.end(s));
+			assertEquals(index.txStart(s), read.txStart(s));
+			assertEquals(index.txEnd(s), read.txEnd(s));
+			assertEquals(index.lnaStart(s), read.lnaStart(s));
+		}
+		assertNull(SectionIndex.read(log, log.length() + 1, log.lastModified()), "log changed since");
+		assertNull(SectionIndex.read(log, log.length(), log.lastModified() + 1000), "log changed since");
+	}
+	
+	@Test
+	public void keepsTheDefect() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log(8, -1));
+		SectionIndex.of(LogCondenser.index(log)).write(log, 1, 2);
+		assertEquals("missing ESC LTE B13 Diversity", SectionIndex.read(log, 1, 2).defect);
+	}
+	
+	@Test
+	public void extractsTheSelectedSectionsLikeTheWholeLog() throws IOException {
+		File log = TestLogs.write(dir, "log.xml", TestLogs.log());
+		LogRecord whole = ExtractionEngine.extract(log);
+		SectionFilter filter = SectionFilter.of(Arrays.asList("B13", "B17 Diversity"), null);
+		try (ExtractionEngine engine = new ExtractionEngine(2, null)) {
+			for (int run = 0; run < 2; run++) { // Indexing the log, then from its sidecar
+				assertEquals(run == 1, SectionIndex.sidecar(log).isFile());
+				LogRecord selected = engine.extractSelected(new File[] {log}, filter)[0];
+				for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+					assertArrayEquals(filter.tx(k) ? whole.maxPowers[k] : new double[4], selected.maxPowers[k]);
+					assertArrayEquals(filter.tx(k) ? whole.minPowers[k] : new double[4], selected.minPowers[k]);
+				}
+				for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+					int from = LogRecord.lnaIndex(set, 0, 0);
+					int[] expected = filter.lna(set) ? whole.lna : new int[whole.lna.length];
+					assertArrayEquals(Arrays.copyOfRange(expected, from, from + LogRecord.LNA_VALUES),
+							Arrays.copyOfRange(selected.lna, from, from + LogRecord.LNA_VALUES));
+				}
+			}
+		}
+	}
+}
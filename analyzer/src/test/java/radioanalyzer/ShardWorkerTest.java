@@ -0,0 +1,87 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writing the partial result of a shard and merging it back, which must give the aggregate of the shards merged in memory.
+ * @author abhi
+ */
+public class ShardWorkerTest {
+	private static final long HOUR = 3600000;
+	
+	@TempDir
+	File dir;
+	
+	@Test
+	public void mergesPartialsLikeAggregatesInMemory() throws IOException {
+		Random random = new Random(1);
+		RunAggregate merged = new RunAggregate();
+		RunAggregate read = new RunAggregate();
+		PipelineMetrics metrics = new PipelineMetrics();
+		Map<String, String> quarantine = new LinkedHashMap<String, String>();
+		for (int shard = 0; shard < 3; shard++) {
+			RunAggregate aggregate = new RunAggregate();
+			PipelineMetrics shardMetrics = new PipelineMetrics();
+			Map<String, String> shardQuarantine = new LinkedHashMap<String, String>();
+			for (int i = 0; i < 500; i++) {
+				LogRecord record = TestLogs.record(random, "log" + shard + "_" + i + ".xml", 1_600_000_000_000L + random.nextInt(48) * HOUR);
+				aggregate.add(record);
+				shardMetrics.logExtracted(1000, 1, 1, 1, record.corrupt);
+				if (record.corrupt) {
+					shardQuarantine.put(record.name, record.defect);
+				}
+			}
+			File partial = new File(dir, "shard" + shard + ".partial");
+			ShardWorker.writePartial(partial, shardQuarantine, shardMetrics, aggregate);
+			merged.merge(aggregate);
+			
+			quarantine.putAll(ShardWorker.readPartial(partial, read, metrics));
+			assertEquals(shardQuarantine, ShardWorker.readPartial(partial, new RunAggregate(), new PipelineMetrics()));
+		}
+		
+		assertEquals(1500, read.getLogs());
+		assertEquals(merged.getCorruptLogs(), read.getCorruptLogs());
+		assertEquals(read.getCorruptLogs(), quarantine.size());
+		assertEquals(1500, metrics.getLogs());
+		assertEquals(quarantine.size(), metrics.getCorruptLogs());
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int s = 0; s < RunAggregate.SERIES; s++) {
+				assertArrayEquals(merged.powerStats(k, s), read.powerStats(k, s));
+			}
+		}
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			assertArrayEquals(merged.lnaAverages(set), read.lnaAverages(set));
+		}
+		List<TrendStats.Point> expected = merged.getTrend().points();
+		List<TrendStats.Point> points = read.getTrend().points();
+		assertEquals(48, points.size());
+		assertEquals(expected.size(), points.size());
+		for (int b = 0; b < points.size(); b++) {
+			assertEquals(expected.get(b).start, points.get(b).start);
+			assertEquals(expected.get(b).logs, points.get(b).logs);
+			assertEquals(expected.get(b).windowLogs, points.get(b).windowLogs);
+			for (int s = 0; s < TrendStats.SERIES; s++) {
+				assertEquals(expected.get(b).mean(s), points.get(b).mean(s));
+				assertEquals(expected.get(b).windowStdDev(s), points.get(b).windowStdDev(s));
+			}
+		}
+	}
+	
+	@Test
+	public void rejectsOtherFiles() throws IOException {
+		File file = TestLogs.write(dir, "log.xml", TestLogs.log());
+		assertThrows(IOException.class, () -> ShardWorker.readPartial(file, new RunAggregate(), new PipelineMetrics()));
+	}
+}
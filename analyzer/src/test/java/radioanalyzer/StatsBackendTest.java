@@ -0,0 +1,53 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The SIMD statistics kernels must give exactly the results of Analyze.getStats, rounding included.
+ * @author abhi
+ */
+public class StatsBackendTest {
+	@Test
+	public void runsTheSimdKernels() {
+		assertTrue(StatsBackend.isVectorized(), "the tests run with --add-modules jdk.incubator.vector");
+	}
+
+	@Test
+	public void matchesTheScalarKernelsOverPowerSeries() {
+		Random random = new Random(1);
+		for (int run = 0; run < 20000; run++) {
+			double[] nums = new double[1 + random.nextInt(run < 1000 ? 40 : 2000)]; // Short series leave a partial vector
+			double center = -60 + 90 * random.nextDouble();
+			double spread = random.nextInt(3) == 0 ? 0.01 : 3;
+			for (int i = 0; i < nums.length; i++) {
+				nums[i] = Analyze.round(center + spread * random.nextGaussian(), 2); // Values of a log, often tied
+			}
+			assertStats(nums);
+		}
+	}
+
+	@Test
+	public void matchesTheScalarKernelsOnEdgeCases() {
+		double[] ties = new double[37];
+		Arrays.fill(ties, 20.005);
+		assertStats(ties);
+		assertStats(new double[] {0.0, -0.0, 0.0, -0.0, 0.0, -0.0, 0.0, -0.0, 0.0});
+		assertStats(new double[] {-0.0, 0.0, -0.0, 0.0, -0.0, 0.0, -0.0, 0.0, -0.0});
+		assertStats(new double[] {1, 2, Double.NaN, 4, 5, 6, 7, 8, 9, 10});
+		assertStats(new double[] {1e308, 1e308, -1e308, 5, 5, 5, 5, 5, 5});
+		assertStats(new double[] {Double.POSITIVE_INFINITY, 1, 2, 3, 4, 5, 6, 7, 8});
+		assertStats(new double[] {0.125, 0.375, 0.625, 0.875, 1.125, 1.375, 1.625, 1.875}); // Means halfway between two roundings
+	}
+
+	private static void assertStats(double[] nums) {
+		double[] expected = Analyze.getStats(nums);
+		assertArrayEquals(expected, VectorStats.getStats(nums), Arrays.toString(nums));
+		assertArrayEquals(expected, StatsBackend.getStats(nums));
+	}
+}
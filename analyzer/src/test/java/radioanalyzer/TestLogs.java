@@ -0,0 +1,149 @@
+package radioanalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds single line QDART Test Report logs with known values for the tests: the 6 regular ESC LTE bands with (APT) Tx
+ * Linearizer and LNA Offset nodes, then the 4 diversity bands with LNA Offset only, then Run_RSB_Pcell_Tx_LO_Cal.
+ * Every value is a function of where it is, see maxPower, minPower and lna.
+ * @author abhi
+ */
+public class TestLogs {
+	private static final int[] BANDS = {2, 4, 5, 12, 13, 17};
+	private static final int[] DIVERSITY = {5, 12, 13, 17};
+	private static final int[] CHANNELS = {18900, 20190, 20512, 23100, 23220, 23779};
+	private static final int[] RX_LVLS = {-61, -60, -50, -40, -40, -40};
+	private static final int NEIGHBOUR = 77; // RxFCompLNAOffset of the channels next to the target one, which are never read
+	
+	private TestLogs() {
+	}
+	
+	/**
+	 * Returns the Tx Linearizer Max Power of a band and slot of LogRecord.maxPowers.
+	 */
+	public static double maxPower(int band, int slot) {
+		return 20 + band + slot * 0.25;
+	}
+	
+	/**
+	 * Returns the Tx Linearizer Min Power of a band and slot of LogRecord.minPowers.
+	 */
+	public static double minPower(int band, int slot) {
+		return -40 - band - slot * 0.25;
+	}
+	
+	/**
+	 * Returns the RxFCompLNAOffset of an LNA set, device and RxLvl.
+	 */
+	public static int lna(int set, int device, int rxLvl) {
+		return (set * 7 + device * 3 + rxLvl) % 81 - 40;
+	}
+	
+	/**
+	 * Returns the number of devices with LNA Offset data of a set.
+	 */
+	public static int devices(int set) {
+		return set < 2 ? RunAggregate.DEVICES : 1;
+	}
+	
+	/**
+	 * Returns a valid log.
+	 */
+	public static String log() {
+		return log(-1, -1);
+	}
+	
+	/**
+	 * @param missing: Section left out, indexed like LogCondenser.condense, or -1
+	 * @param malformed: Section whose target RxFCompLNAOffset items are mislabelled, or -1
+	 */
+	public static String log(int missing, int malformed) {
+		StringBuilder sb = new StringBuilder(64 * 1024);
+		sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?><TestReport><Node><NodeName>Therm Cal</NodeName>");
+		item(sb, "Meas 0", "41.250");
+		sb.append("</Node>");
+		for (int s = 0; s < ExtractionEngine.LNA_SETS; s++) {
+			if (s != missing) {
+				section(sb, s, s == malformed);
+			}
+		}
+		sb.append("<Node><NodeName>Run_RSB_Pcell_Tx_LO_Cal</NodeName></Node></TestReport>");
+		return sb.toString();
+	}
+	
+	/**
+	 * Returns a record with random values in the ranges of real logs, quarantined one time in ten.
+	 * @param time: When the log was written, in ms since the epoch
+	 */
+	public static LogRecord record(Random random, String name, long time) {
+		if (random.nextInt(10) == 0) {
+			return LogRecord.quarantined(name, time, "missing ESC LTE B13");
+		}
+		double[][] maxPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		double[][] minPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			for (int slot = 0; slot < 4; slot++) {
+				maxPowers[k][slot] = Math.round((20 + 8 * random.nextDouble()) * 100) / 100.0;
+				minPowers[k][slot] = Math.round((-60 + 20 * random.nextDouble()) * 100) / 100.0;
+			}
+		}
+		int[] lna = new int[ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES];
+		for (int set = 0; set < ExtractionEngine.LNA_SETS; set++) {
+			for (int d = 0; d < devices(set); d++) {
+				for (int r = 0; r < RunAggregate.RX_LVLS; r++) {
+					lna[LogRecord.lnaIndex(set, d, r)] = random.nextInt(81) - 40;
+				}
+			}
+		}
+		return new LogRecord(name, time, maxPowers, minPowers, lna, null);
+	}
+	
+	/**
+	 * Writes log to a file of dir.
+	 */
+	public static File write(File dir, String name, String log) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), log.getBytes(StandardCharsets.ISO_8859_1));
+		return file;
+	}
+	
+	private static void section(StringBuilder sb, int set, boolean malformed) {
+		boolean diversity = set >= BANDS.length;
+		String name = "ESC LTE B" + (diversity ? DIVERSITY[set - BANDS.length] : BANDS[set]);
+		int channel = diversity ? CHANNELS[set - BANDS.length + 2] : CHANNELS[set];
+		sb.append("<Node><ExtendedName>").append(name).append("</ExtendedName><NodeName>").append(name).append("</NodeName>");
+		if (!diversity) {
+			for (int apt = 0; apt < 2; apt++) {
+				sb.append("<Node><NodeName>").append(apt == 0 ? "" : "APT ").append("Tx Linearizer</NodeName>");
+				for (int pa = 0; pa < 2; pa++) {
+					item(sb, "PA State", pa == 0 ? "3" : "0");
+					item(sb, "Tx Lin Swp Max Power", String.format(Locale.ROOT, "%.2f", maxPower(set, apt * 2 + pa)));
+					item(sb, "Tx Lin Swp Min Power", String.format(Locale.ROOT, "%.2f", minPower(set, apt * 2 + pa)));
+				}
+				sb.append("</Node>");
+			}
+		}
+		sb.append("<Node><NodeName>LNA Offset</NodeName>");
+		for (int d = 0; d < devices(set); d++) {
+			for (int r = 0; r < RX_LVLS.length; r++) {
+				for (int c : new int[] {channel - 50, channel, channel + 50}) { // Neighbouring channels are interleaved as in real logs
+					item(sb, "Channel", Integer.toString(c));
+					item(sb, "Device", Integer.toString(d));
+					item(sb, "RxLvl", Integer.toString(RX_LVLS[r]));
+					item(sb, malformed && c == channel ? "RxFCompLNAOffse" : "RxFCompLNAOffset", Integer.toString(c == channel ? lna(set, d, r) : NEIGHBOUR));
+				}
+			}
+		}
+		item(sb, "Channel", "0");
+		sb.append("</Node></Node>");
+	}
+	
+	private static void item(StringBuilder sb, String name, String value) {
+		sb.append("<DI><N>").append(name).append("</N><V>").append(value).append("</V></DI>");
+	}
+}
@@ -0,0 +1,154 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bucketing logs by time, the sliding window over the buckets and the expiry of buckets past the retention.
+ * @author abhi
+ */
+public class TrendStatsTest {
+	private static final int TX_MAX_3 = TrendStats.series(0, RunAggregate.TX_MAX_3);
+	private static final int TX_MIN_0 = TrendStats.series(ExtractionEngine.POWER_BANDS - 1, RunAggregate.TX_MIN_0);
+	private static final int LNA = TrendStats.lnaSeries(ExtractionEngine.LNA_SETS - 1);
+	
+	@Test
+	public void bucketsLogsByTime() {
+		TrendStats trend = new TrendStats(1000, 3);
+		trend.add(record(500, 10));
+		trend.add(record(5100, 40));
+		trend.add(record(900, 20));
+		trend.add(record(2500, 30));
+		List<TrendStats.Point> points = trend.points();
+		assertEquals(3, points.size());
+		assertEquals(0, points.get(0).start);
+		assertEquals(2000, points.get(1).start);
+		assertEquals(5000, points.get(2).start);
+		assertEquals(2, points.get(0).logs);
+		assertEquals(1, points.get(1).logs);
+		assertEquals(15, points.get(0).mean(TX_MAX_3));
+		assertEquals(-15, points.get(0).mean(TX_MIN_0));
+		assertEquals(15, points.get(0).mean(LNA));
+		assertEquals(30, points.get(1).mean(TX_MAX_3));
+	}
+	
+	@Test
+	public void slidesTheWindowOverTheBuckets() {
+		TrendStats trend = new TrendStats(1000, 3);
+		for (long time : new long[] {500, 900, 2500, 5100}) {
+			trend.add(record(time, time / 100));
+		}
+		List<TrendStats.Point> points = trend.points();
+		assertEquals(2, points.get(0).windowLogs);
+		assertEquals(7, points.get(0).windowMean(TX_MAX_3));
+		assertEquals(2, points.get(0).windowStdDev(TX_MAX_3));
+		
+		assertEquals(3, points.get(1).windowLogs); // Buckets 0 to 2
+		assertEquals(13, points.get(1).windowMean(TX_MAX_3));
+		assertEquals(8.64, points.get(1).windowStdDev(TX_MAX_3)); // sqrt(224 / 3)
+		assertEquals(-13, points.get(1).windowMean(TX_MIN_0));
+		
+		assertEquals(1, points.get(2).windowLogs); // Buckets 3 to 5, so only bucket 0 and 2 have left
+		assertEquals(51, points.get(2).windowMean(TX_MAX_3));
+		assertEquals(0, points.get(2).windowStdDev(TX_MAX_3));
+	}
+	
+	@Test
+	public void expiresBucketsPastTheRetention() {
+		TrendStats trend = new TrendStats(1000, 24);
+		trend.setRetention(3000);
+		trend.add(record(100, 1));
+		trend.add(record(1000, 2));
+		trend.add(record(5000, 5));
+		assertEquals(Arrays.asList(5000L), starts(trend));
+		trend.add(record(1500, 2)); // Older than the retention
+		trend.add(record(2000, 3));
+		assertEquals(Arrays.asList(2000L, 5000L), starts(trend));
+		
+		TrendStats kept = new TrendStats(1000, 24);
+		kept.add(record(100, 1));
+		kept.add(record(9000, 9));
+		assertEquals(Arrays.asList(0L, 9000L), starts(kept));
+		kept.setRetention(3000);
+		assertEquals(Arrays.asList(9000L), starts(kept));
+	}
+	
+	@Test
+	public void leavesOutQuarantinedLogsAndUnknownTimes() {
+		TrendStats trend = new TrendStats();
+		trend.add(LogRecord.quarantined("log.xml", 1000, "missing ESC LTE B13"));
+		trend.add(record(0, 10));
+		assertTrue(trend.isEmpty());
+	}
+	
+	@Test
+	public void mergesAndReadsBackLikeOneTrend() throws IOException {
+		TrendStats all = new TrendStats(1000, 2);
+		TrendStats first = new TrendStats(1000, 2);
+		TrendStats second = new TrendStats(1000, 2);
+		for (int i = 0; i < 20; i++) {
+			LogRecord record = record(i * 370, i % 7);
+			all.add(record);
+			(i % 3 == 0 ? first : second).add(record);
+		}
+		first.merge(second);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		first.write(new DataOutputStream(bytes));
+		TrendStats read = TrendStats.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(1000, read.getBucket());
+		assertEquals(2, read.getWindow());
+		
+		List<TrendStats.Point> expected = all.points();
+		List<TrendStats.Point> points = read.points();
+		assertEquals(expected.size(), points.size());
+		for (int b = 0; b < points.size(); b++) {
+			assertEquals(expected.get(b).start, points.get(b).start);
+			assertEquals(expected.get(b).logs, points.get(b).logs);
+			assertEquals(expected.get(b).windowLogs, points.get(b).windowLogs);
+			assertEquals(expected.get(b).mean(LNA), points.get(b).mean(LNA));
+			assertEquals(expected.get(b).windowStdDev(TX_MAX_3), points.get(b).windowStdDev(TX_MAX_3));
+		}
+		assertThrows(IllegalArgumentException.class, () -> all.merge(new TrendStats(2000, 2)));
+	}
+	
+	@Test
+	public void rejectsEmptyBucketsAndWindows() {
+		assertThrows(IllegalArgumentException.class, () -> new TrendStats(0, 24));
+		assertThrows(IllegalArgumentException.class, () -> new TrendStats(1000, 0));
+	}
+	
+	/**
+	 * Returns a log of time whose max powers and LNA offsets are all value and whose min powers are all -value.
+	 */
+	private static LogRecord record(long time, double value) {
+		double[][] maxPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		double[][] minPowers = new double[ExtractionEngine.POWER_BANDS][4];
+		for (int k = 0; k < ExtractionEngine.POWER_BANDS; k++) {
+			Arrays.fill(maxPowers[k], value);
+			Arrays.fill(minPowers[k], -value);
+		}
+		int[] lna = new int[ExtractionEngine.LNA_SETS * LogRecord.LNA_VALUES];
+		Arrays.fill(lna, (int) value);
+		return new LogRecord("log" + time + ".xml", time, maxPowers, minPowers, lna, null);
+	}
+	
+	private static List<Long> starts(TrendStats trend) {
+		List<Long> starts = new ArrayList<Long>();
+		for (TrendStats.Point point : trend.points()) {
+			starts.add(point.start);
+		}
+		return starts;
+	}
+}
@@ -0,0 +1,100 @@
+package radioanalyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ValueReader must read every value exactly like Double.parseDouble and Integer.parseInt, which the legacy extractors used.
+ * @author abhi
+ */
+public class ValueReaderTest {
+	private static final String[] DOUBLES = {"-40.35", "23.60", "20.08", "0", "0.0", "-0.0", "+2.5", "7", "-7.", ".5", "1e3", "1E-5",
+			"-2.5e+2", "0.1", "0.30000000000000004", "9007199254740993", "123456789012345678901234", "1.7976931348623157e308",
+			"4.9e-324", "1e-400", "1e400", "000012.500", "3.141592653589793238462643"};
+	private static final String[] NOT_DOUBLES = {"", "-", ".", "abc", "1.2.3", "1e", "1e+", "--1", "NaN", "Infinity", "1.5d", " 1.5", "0x10"};
+	private static final String[] INTS = {"0", "-0", "-40", "+7", "40", "007", "2147483647", "-2147483648"};
+	private static final String[] NOT_INTS = {"", "-", "+", "12a", "1.0", "2147483648", "-2147483649", "99999999999", " 1"};
+	
+	@Test
+	public void readsDoublesLikeParseDouble() {
+		for (String value : DOUBLES) {
+			assertEquals(Double.parseDouble(value), readDouble(value), value);
+		}
+	}
+	
+	@Test
+	public void readsRandomPowersLikeParseDouble() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			double power = -60 + 90 * random.nextDouble();
+			for (String value : new String[] {String.format(Locale.ROOT, "%.2f", power), String.format(Locale.ROOT, "%.6f", power),
+					Double.toString(power), Double.toString(power * 1e-9)}) {
+				assertEquals(Double.parseDouble(value), readDouble(value), value);
+			}
+		}
+	}
+	
+	@Test
+	public void readsMalformedDoublesAsNaN() {
+		for (String value : NOT_DOUBLES) {
+			assertTrue(Double.isNaN(readDouble(value)), value);
+		}
+	}
+	
+	@Test
+	public void readsIntsLikeParseInt() {
+		for (String value : INTS) {
+			assertEquals(Integer.parseInt(value), readInt(value), value);
+		}
+		Random random = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			String value = Integer.toString(random.nextInt());
+			assertEquals(Integer.parseInt(value), readInt(value), value);
+		}
+	}
+	
+	@Test
+	public void readsMalformedIntsAsNotAnInt() {
+		for (String value : NOT_INTS) {
+			assertThrows(NumberFormatException.class, () -> Integer.parseInt(value), value);
+			assertEquals(ValueReader.NOT_AN_INT, readInt(value), value);
+		}
+	}
+	
+	@Test
+	public void readsOnlyWithinTheWindow() {
+		LogSection section = section("Tx Lin Swp Max Power</N><V>20.08</V></DI>");
+		assertEquals(20.08, ValueReader.readDouble(section, 0, section.length()));
+		assertTrue(Double.isNaN(ValueReader.readDouble(section, 0, ValueReader.WINDOW - 1)), "window past the limit");
+		
+		LogSection far = section("Tx Lin Swp Max Power</N><Unit>dBm</Unit><V>20.08</V></DI>");
+		assertTrue(Double.isNaN(ValueReader.readDouble(far, 0, far.length())), "</V> past the window");
+	}
+	
+	private static double readDouble(String value) {
+		LogSection section = section("<V>" + value + "</V>");
+		return ValueReader.readDouble(section, 0, section.length());
+	}
+	
+	private static long readInt(String value) {
+		LogSection section = section("<V>" + value + "</V>");
+		return ValueReader.readInt(section, 0, section.length());
+	}
+	
+	/**
+	 * Returns a section of text padded to at least WINDOW bytes, placed after other data so that its offsets are not absolute.
+	 */
+	private static LogSection section(String text) {
+		String padded = text + " ".repeat(Math.max(0, ValueReader.WINDOW - text.length()));
+		byte[] bytes = ("<DI><N>" + padded).getBytes(StandardCharsets.ISO_8859_1);
+		return new LogSection(ByteBuffer.wrap(bytes), 7, bytes.length);
+	}
+}
@@ -0,0 +1,48 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import radioanalyzer.LogCondenser;
+import radioanalyzer.LogSection;
+import radioanalyzer.MarkerIndex;
+
+/**
+ * Splitting a whole log into its 10 ESC LTE sections, and locating every marker of the log in one pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CondenseBenchmark {
+	private File log;
+	
+	@Setup
+	public void setup() throws IOException {
+		log = new QdartFixture(1).writeLog();
+	}
+	
+	@Benchmark
+	public LogSection[] condense() throws IOException {
+		return LegacyParser.condense(log);
+	}
+	
+	@Benchmark
+	public MarkerIndex index() throws IOException {
+		return LogCondenser.index(log);
+	}
+}
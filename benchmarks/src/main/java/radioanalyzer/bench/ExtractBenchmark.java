@@ -0,0 +1,93 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import radioanalyzer.Analyze;
+import radioanalyzer.LogCondenser;
+import radioanalyzer.LogRecord;
+import radioanalyzer.LogSection;
+import radioanalyzer.MarkerIndex;
+
+/**
+ * Value extraction from a condensed section: Tx Linearizer powers from a regular band and
+ * RxFCompLNAOffset values from B2 (24 values) and a diversity band (6 values).
+ * The plain variants measure LegacyParser, the reference implementation. The indexed variants, which the analyzer uses,
+ * find the markers in the MarkerIndex of the log instead of scanning the section, and store the LNA Offset values into an
+ * int[] instead of an ArrayList<Integer>. They parse the values in place with ValueReader, so they allocate nothing but
+ * the array of powers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractBenchmark {
+	private LogSection b2;
+	private LogSection b17;
+	private LogSection diversityB17;
+	private MarkerIndex markers;
+	private int maxPower;
+	private int channelB2;
+	private int channelB17;
+	private final int[] lna = new int[LogRecord.LNA_VALUES];
+	
+	@Setup
+	public void setup() throws IOException {
+		File log = new QdartFixture(1).writeLog();
+		markers = LogCondenser.index(log);
+		maxPower = LogCondenser.MARKERS.indexOf("Tx Lin Swp Max Power");
+		channelB2 = LogCondenser.MARKERS.indexOf("18900");
+		channelB17 = LogCondenser.MARKERS.indexOf("23779");
+		LogSection[] sections = LegacyParser.condense(log);
+		b2 = sections[0];
+		b17 = sections[5];
+		diversityB17 = sections[9];
+	}
+	
+	@Benchmark
+	public double[] extractPower() {
+		return LegacyParser.extractPower(b17, "Tx Lin Swp Max Power");
+	}
+	
+	@Benchmark
+	public ArrayList<Integer> lnaOffsetB2() {
+		return LegacyParser.getRxFCompLNAOffset(b2, "18900");
+	}
+	
+	@Benchmark
+	public ArrayList<Integer> lnaOffsetDiversity() {
+		return LegacyParser.getRxFCompLNAOffset(diversityB17, "23779");
+	}
+	
+	@Benchmark
+	public double[] extractPowerIndexed() {
+		return Analyze.extractPower(b17, markers, maxPower);
+	}
+	
+	@Benchmark
+	public int[] lnaOffsetB2Indexed() {
+		Analyze.getRxFCompLNAOffset(b2, markers, channelB2, lna, 0, lna.length);
+		return lna;
+	}
+	
+	@Benchmark
+	public int[] lnaOffsetDiversityIndexed() {
+		Analyze.getRxFCompLNAOffset(diversityB17, markers, channelB17, lna, 0, lna.length);
+		return lna;
+	}
+}
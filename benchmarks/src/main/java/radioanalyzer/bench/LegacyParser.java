@@ -0,0 +1,78 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import radioanalyzer.LogCondenser;
+import radioanalyzer.LogSection;
+
+/**
+ * The string-scanning parser the analyzer used before every marker was located in one pass and the values were parsed in
+ * place, kept only as the reference the benchmarks measure the analyzer against.
+ * It throws on the first malformed value or missing section instead of quarantining the log.
+ */
+public class LegacyParser {
+	private LegacyParser() {
+	}
+	
+	/**
+	 * Extracts the 10 ESC LTE sections of a single log.
+	 * @return LogSection[] of the ESC LTE data of B2,B4,B5,B12,B13,B17 followed by B5-B17 Diversity.
+	 * @throws IOException if the log cannot be read or is missing one of the ESC LTE sections
+	 */
+	public static LogSection[] condense(File log) throws IOException {
+		LogSection[] sections = new LogSection[10];
+		String defect = LogCondenser.condense(LogCondenser.index(log), sections);
+		if (defect != null) {
+			throw new IOException(log.getName() + " is " + defect);
+		}
+		return sections;
+	}
+	
+	/**
+	 * Extracts the (APT) Tx Linearizer data
+	 *
+	 * @param str: ESC LTE band data from a single log
+	 * @param key: Max or Min Power
+	 * @return double[] with the Tx and APT Tx Linearizer data for PA State 3 and PA State 0.
+	 */
+	public static double[] extractPower(LogSection str, String key) {
+		double[] values = new double[4]; // {Tx PA State 3, Tx PA State 0, APT Tx PA State 3, APT Tx PA State 0}
+		int addPos = 0;
+		int index = str.indexOf(key);
+		while (index >= 0) {
+			LogSection s = str.subSequence(index, index + 40);
+			LogSection target = s.subSequence(s.indexOf("<V>") + 3, s.indexOf("</V>")); // Extracts the value
+			values[addPos] = Double.parseDouble(target.toString());
+			addPos++;
+			index = str.indexOf(key, index + 1); // Proceeds to next value
+		}
+		return values;
+	}
+	
+	/**
+	 * Extracts RxFCompLNAOffset values
+	 *
+	 * @param str: ESC LTE band data from a single log
+	 * @param channel: The particular channel to get LNA Offset data for
+	 * @return ArrayList<Integer> with the RxFCompLNAOffset values for the specified channel across all RxLevels
+	 */
+	public static ArrayList<Integer> getRxFCompLNAOffset(LogSection str, String channel) {
+		ArrayList<Integer> values = new ArrayList<Integer>();
+		
+		str = str.subSequence(str.indexOf("LNA"), str.length()); // Find the LNA data section
+		int index = str.indexOf(channel);
+		
+		while (index >= 0) {
+			LogSection s = str.subSequence(index, str.indexOf("Channel", index));
+			int pos = s.indexOf("RxFCompLNAOffset"); // Find the section with the RxFCompLNAOffset values
+			s = s.subSequence(pos, pos + 40);
+			
+			LogSection target = s.subSequence(s.indexOf("<V>") + 3, s.indexOf("</V>")); // Extracts the value
+			values.add(Integer.parseInt(target, 0, target.length(), 10)); // Parses the value in place
+			index = str.indexOf(channel, index + 1); // Move to next RxLevel
+		}
+		return values;
+	}
+}
@@ -0,0 +1,78 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a corpus of synthetic QDART Test Report logs for load testing.
+ * Usage: LogGenerator <output directory> <logs> [--corrupt-rate R] [--size KB] [--seed S] [--format xml|gz|zip]
+ * gz writes each log gzip compressed, zip bundles all of the logs into logs.zip.
+ * @see QdartFixture
+ */
+public class LogGenerator {
+	public static void main(String[] args) throws IOException {
+		File outputDirectory = new File(args[0]);
+		int numLogs = Integer.parseInt(args[1]);
+		double corruptRate = 0.0; // Fraction of logs that fail LNA parsing
+		int sizeKB = 0; // Approximate size of each log, the ESC LTE data alone is about 50 KB
+		long seed = 1;
+		String format = "xml";
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("--corrupt-rate")) {
+				corruptRate = Double.parseDouble(args[++i]);
+			} else if (args[i].equals("--size")) {
+				sizeKB = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--format")) {
+				format = args[++i];
+			}
+		}
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			throw new IOException("Cannot create " + outputDirectory);
+		}
+		
+		QdartFixture fixture = new QdartFixture(seed, Math.max(0, sizeKB - 50) * 1024);
+		Random random = new Random(seed);
+		long bytes = 0;
+		int corrupt = 0;
+		int digits = Integer.toString(numLogs - 1).length();
+		ZipOutputStream zip = format.equals("zip") ? new ZipOutputStream(new FileOutputStream(new File(outputDirectory, "logs.zip"))) : null;
+		try {
+			for (int i = 0; i < numLogs; i++) {
+				boolean isCorrupt = random.nextDouble() < corruptRate;
+				String name = String.format("log%0" + digits + "d.xml", i);
+				byte[] log = fixture.log(isCorrupt).getBytes(StandardCharsets.ISO_8859_1);
+				if (zip != null) {
+					zip.putNextEntry(new ZipEntry(name));
+					zip.write(log);
+					zip.closeEntry();
+				} else if (format.equals("gz")) {
+					try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(outputDirectory, name + ".gz")))) {
+						out.write(log);
+					}
+				} else {
+					try (OutputStream out = new FileOutputStream(new File(outputDirectory, name))) {
+						out.write(log);
+					}
+				}
+				bytes += log.length;
+				if (isCorrupt) {
+					corrupt++;
+				}
+			}
+		} finally {
+			if (zip != null) {
+				zip.close();
+			}
+		}
+		System.out.println(numLogs + " logs (" + corrupt + " corrupt), " + bytes / (1024 * 1024) + " MB of XML written to " + outputDirectory);
+	}
+}
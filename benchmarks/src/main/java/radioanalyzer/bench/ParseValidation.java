@@ -0,0 +1,61 @@
+package radioanalyzer.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import radioanalyzer.LogSection;
+import radioanalyzer.ValueReader;
+
+/**
+ * Checks that ValueReader.readDouble gives exactly the same results as Double.parseDouble, and readInt as Integer.parseInt,
+ * over random values in the formats QDART logs (dBm with 0 to 3 decimals, signed or not) plus exponents and long mantissas.
+ */
+public class ParseValidation {
+	public static void main(String[] args) {
+		int values = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		SplittableRandom random = new SplittableRandom(1);
+		ByteBuffer buf = ByteBuffer.allocateDirect(256);
+		int mismatches = 0;
+		for (int i = 0; i < values; i++) {
+			String text;
+			switch (i % 8) {
+			case 0: text = String.format(Locale.ROOT, "%.3f", random.nextDouble(-120, 40)); break;
+			case 1: text = String.format(Locale.ROOT, "%.1f", random.nextDouble(-120, 40)); break;
+			case 2: text = Integer.toString(random.nextInt(-200, 200)); break;
+			case 3: text = (random.nextBoolean() ? "+" : "-") + "0.0" + random.nextInt(10); break;
+			case 4: text = random.nextInt(-999, 1000) + "." + random.nextInt(100) + "e" + random.nextInt(-30, 30); break;
+			case 5: text = random.nextLong(-999999999999L, 999999999999L) + "." + random.nextLong(100000000L); break; // Past the fast path
+			default: text = String.format(Locale.ROOT, "%.2f", random.nextDouble(-120, 40)); break; // Most QDART values
+			}
+			byte[] bytes = ("Max<V>" + text + "</V></Max>                                        ").getBytes(StandardCharsets.ISO_8859_1);
+			buf.clear();
+			buf.put(bytes).flip();
+			LogSection section = new LogSection(buf, 0, bytes.length);
+			
+			double expected = Double.parseDouble(text);
+			double actual = ValueReader.readDouble(section, 0, section.length());
+			if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+				if (mismatches++ < 10) {
+					System.out.println(text + ": expected " + expected + ", got " + actual);
+				}
+			}
+			long expectedInt;
+			try {
+				expectedInt = Integer.parseInt(text);
+			} catch (NumberFormatException e) {
+				expectedInt = ValueReader.NOT_AN_INT;
+			}
+			if (ValueReader.readInt(section, 0, section.length()) != expectedInt) {
+				if (mismatches++ < 10) {
+					System.out.println(text + ": expected int " + expectedInt + ", got " + ValueReader.readInt(section, 0, section.length()));
+				}
+			}
+		}
+		System.out.println(values + " values, " + mismatches + " mismatches");
+		if (mismatches > 0) {
+			System.exit(1);
+		}
+	}
+}
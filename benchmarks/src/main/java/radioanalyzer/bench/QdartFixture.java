@@ -0,0 +1,145 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds representative single line QDART Test Report logs for the benchmarks.
+ * The layout matches what LogCondenser and Analyze expect: the 6 regular ESC LTE bands with
+ * (APT) Tx Linearizer and LNA Offset nodes, then the 4 diversity bands with LNA Offset only.
+ * Real logs also carry the results of every other QDART test, which is padded in as filler
+ * before and after the ESC LTE data.
+ */
+public class QdartFixture {
+	private static final int[] BANDS = {2, 4, 5, 12, 13, 17};
+	private static final int[] DIVERSITY = {5, 12, 13, 17};
+	private static final int[] CHANNELS = {18900, 20190, 20512, 23100, 23220, 23779};
+	private static final int[] RX_LVLS = {-61, -60, -50, -40, -40, -40};
+	
+	private static final String[] FILLER_TESTS = {"GSM 850 Tx Cal", "GSM 1900 Rx Cal", "WCDMA B1 Tx Lin Cal", "WCDMA B5 Rx Cal", "Therm Cal", "XO Cal"};
+	
+	private final Random random;
+	private final int fillerBytes; // Approximate size of the other tests in each log
+	
+	public QdartFixture(long seed) {
+		this(seed, 0);
+	}
+	
+	public QdartFixture(long seed, int fillerBytes) {
+		random = new Random(seed);
+		this.fillerBytes = fillerBytes;
+	}
+	
+	/**
+	 * Writes one log to a temporary file that is deleted on exit.
+	 */
+	public File writeLog() throws IOException {
+		File log = File.createTempFile("qdart", ".xml");
+		log.deleteOnExit();
+		write(log, false);
+		return log;
+	}
+	
+	/**
+	 * Writes one log to file.
+	 * @param corrupt: the log fails LNA parsing, see log(boolean)
+	 * @return the number of bytes written.
+	 */
+	public int write(File file, boolean corrupt) throws IOException {
+		byte[] bytes = log(corrupt).getBytes(StandardCharsets.ISO_8859_1);
+		Files.write(file.toPath(), bytes);
+		return bytes.length;
+	}
+	
+	/**
+	 * @return a complete log as a single line of XML.
+	 */
+	public String log() {
+		return log(false);
+	}
+	
+	/**
+	 * @param corrupt: the RxFCompLNAOffset items of the target channel of one LNA set are mislabelled,
+	 * which Analyze quarantines as a malformed RxFCompLNAOffset
+	 * @return a complete log as a single line of XML.
+	 */
+	public String log(boolean corrupt) {
+		int corruptSet = corrupt ? random.nextInt(BANDS.length + DIVERSITY.length) : -1;
+		StringBuilder sb = new StringBuilder(64 * 1024 + fillerBytes);
+		sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?><TestReport>");
+		filler(sb, fillerBytes / 2);
+		for (int i = 0; i < BANDS.length; i++) {
+			section(sb, BANDS[i], CHANNELS[i], false, i == corruptSet);
+		}
+		for (int i = 0; i < DIVERSITY.length; i++) {
+			section(sb, DIVERSITY[i], CHANNELS[i + 2], true, BANDS.length + i == corruptSet);
+		}
+		sb.append("<Node><NodeName>Run_RSB_Pcell_Tx_LO_Cal</NodeName></Node>");
+		filler(sb, fillerBytes - fillerBytes / 2);
+		sb.append("</TestReport>");
+		return sb.toString();
+	}
+	
+	/**
+	 * @return numValues Tx power like values with two decimals, as in the logs.
+	 */
+	public double[] powers(int numValues) {
+		double[] values = new double[numValues];
+		for (int i = 0; i < numValues; i++) {
+			values[i] = Math.round((20 + 8 * random.nextDouble()) * 100) / 100.0;
+		}
+		return values;
+	}
+	
+	private void section(StringBuilder sb, int band, int channel, boolean diversity, boolean corrupt) {
+		String name = "ESC LTE B" + band;
+		sb.append("<Node><ExtendedName>").append(name).append("</ExtendedName><NodeName>").append(name).append("</NodeName>");
+		if (!diversity) {
+			for (String apt : new String[] {"", "APT "}) {
+				sb.append("<Node><NodeName>").append(apt).append("Tx Linearizer</NodeName>");
+				for (int pa : new int[] {3, 0}) {
+					item(sb, "PA State", Integer.toString(pa));
+					item(sb, "Tx Lin Swp Max Power", String.format(Locale.ROOT, "%.2f", 20 + 8 * random.nextDouble()));
+					item(sb, "Tx Lin Swp Min Power", String.format(Locale.ROOT, "%.2f", -60 + 20 * random.nextDouble()));
+				}
+				sb.append("</Node>");
+			}
+		}
+		sb.append("<Node><NodeName>LNA Offset</NodeName>");
+		int devices = !diversity && band <= 4 ? 4 : 1;
+		for (int d = 0; d < devices; d++) {
+			for (int rxLvl : RX_LVLS) {
+				for (int c : new int[] {channel - 50, channel, channel + 50}) { // Neighbouring channels are interleaved as in real logs
+					item(sb, "Channel", Integer.toString(c));
+					item(sb, "Device", Integer.toString(d));
+					item(sb, "RxLvl", Integer.toString(rxLvl));
+					item(sb, corrupt && c == channel ? "RxFCompLNAOffse" : "RxFCompLNAOffset", Integer.toString(random.nextInt(81) - 40));
+				}
+			}
+		}
+		item(sb, "Channel", "0");
+		sb.append("</Node></Node>");
+	}
+	
+	/**
+	 * Appends about numBytes of results from tests the analyzer does not read.
+	 */
+	private void filler(StringBuilder sb, int numBytes) {
+		int end = sb.length() + numBytes;
+		while (sb.length() < end) {
+			sb.append("<Node><NodeName>").append(FILLER_TESTS[random.nextInt(FILLER_TESTS.length)]).append("</NodeName>");
+			for (int i = 0; i < 16; i++) {
+				item(sb, "Meas " + i, String.format(Locale.ROOT, "%.3f", 100 * random.nextDouble()));
+			}
+			sb.append("</Node>");
+		}
+	}
+	
+	private static void item(StringBuilder sb, String name, String value) {
+		sb.append("<DI><N>").append(name).append("</N><V>").append(value).append("</V></DI>");
+	}
+}
@@ -0,0 +1,60 @@
+package radioanalyzer.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import radioanalyzer.Analyze;
+import radioanalyzer.StatsAccumulator;
+import radioanalyzer.StatsBackend;
+
+/**
+ * Min/max/mean/median/std dev of one power series, array based against the one pass accumulator and the StatsBackend
+ * SIMD kernels. logs is the number of logs in the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class StatsBenchmark {
+	@Param({"50", "1000", "100000"})
+	private int logs;
+	
+	private double[] values;
+	
+	@Setup
+	public void setup() {
+		values = new QdartFixture(1).powers(logs);
+	}
+	
+	@Benchmark
+	public double[] getStats() {
+		return Analyze.getStats(values);
+	}
+	
+	@Benchmark
+	public double[] backend() {
+		return StatsBackend.getStats(values);
+	}
+	
+	@Benchmark
+	public double[] accumulator() {
+		StatsAccumulator acc = new StatsAccumulator();
+		for (double v : values) {
+			acc.add(v);
+		}
+		return acc.getStats();
+	}
+}
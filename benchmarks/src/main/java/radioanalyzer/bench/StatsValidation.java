@@ -0,0 +1,44 @@
+package radioanalyzer.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import radioanalyzer.Analyze;
+import radioanalyzer.StatsBackend;
+
+/**
+ * Checks that StatsBackend.getStats gives exactly the same results as Analyze.getStats, over power series from
+ * QdartFixture and random series of every length up to a few vectors plus longer ones.
+ * Run with --add-modules jdk.incubator.vector, otherwise both sides are the scalar kernels.
+ */
+public class StatsValidation {
+	public static void main(String[] args) {
+		int series = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		System.out.println(StatsBackend.isVectorized() ? "Vector backend" : "Scalar backend (run with --add-modules jdk.incubator.vector)");
+		
+		SplittableRandom random = new SplittableRandom(1);
+		int mismatches = 0;
+		for (int i = 0; i < series; i++) {
+			double[] nums;
+			if (i % 4 == 0) {
+				nums = new QdartFixture(i).powers(1 + random.nextInt(5000));
+			} else {
+				nums = new double[i % 3 == 0 ? 1 + random.nextInt(20000) : 1 + random.nextInt(64)];
+				for (int j = 0; j < nums.length; j++) {
+					nums[j] = Math.round(random.nextDouble(-60, 30) * 100) / 100.0; // Logged with 2 decimals
+				}
+			}
+			double[] expected = Analyze.getStats(nums.clone());
+			double[] actual = StatsBackend.getStats(nums.clone());
+			if (!Arrays.equals(expected, actual)) {
+				if (mismatches++ < 10) {
+					System.out.println(nums.length + " values: expected " + Arrays.toString(expected) + ", got " + Arrays.toString(actual));
+				}
+			}
+		}
+		System.out.println(series + " series, " + mismatches + " mismatches");
+		if (mismatches > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package radioanalyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import radioanalyzer.Analyze;
+import radioanalyzer.ExtractionEngine;
+
+/**
+ * End to end throughput of the whole Analyze pipeline over a directory of logs.
+ * Usage: Throughput <log directory> [--runs N] [Analyze options...]
+ * Each run is timed from listing the directory to writing the workbook, and reports MB/s, logs/s
+ * and the peak heap use. The extraction cache is off unless a --cache option is passed through.
+ * MB/s is of the files as stored, so compressed logs count at their compressed size.
+ */
+public class Throughput {
+	public static void main(String[] args) throws IOException {
+		File inputDirectory = new File(args[0]);
+		int runs = 3;
+		List<String> analyzeArgs = new ArrayList<String>();
+		analyzeArgs.add(args[0]);
+		boolean cacheOption = false;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--runs")) {
+				runs = Integer.parseInt(args[++i]);
+			} else {
+				cacheOption |= args[i].startsWith("--cache") || args[i].equals("--no-cache");
+				analyzeArgs.add(args[i]);
+			}
+		}
+		if (!cacheOption) {
+			analyzeArgs.add("--no-cache"); // Otherwise every run after the first only reads the cache
+		}
+		
+		File[] logs = inputDirectory.listFiles((dir, name) -> name.endsWith(".xml") || name.endsWith(".gz") || name.endsWith(".zip"));
+		if (logs == null || logs.length == 0) {
+			throw new IOException("No logs in " + inputDirectory);
+		}
+		long bytes = Arrays.stream(logs).mapToLong(File::length).sum();
+		double mb = bytes / (1024.0 * 1024.0);
+		int numLogs = 0;
+		for (File log : logs) {
+			if (ExtractionEngine.isZip(log)) {
+				try (ZipFile zip = new ZipFile(log)) {
+					numLogs += zip.size();
+				}
+			} else {
+				numLogs++;
+			}
+		}
+		System.out.printf("%d logs, %.1f MB%n", numLogs, mb);
+		
+		List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				heapPools.add(pool);
+			}
+		}
+		
+		String[] analyzeArgv = analyzeArgs.toArray(new String[0]);
+		double best = Double.MAX_VALUE;
+		for (int run = 1; run <= runs; run++) {
+			Analyze.reportFile(inputDirectory).delete();
+			System.gc();
+			for (MemoryPoolMXBean pool : heapPools) {
+				pool.resetPeakUsage();
+			}
+			
+			long start = System.nanoTime();
+			Analyze.main(analyzeArgv);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			
+			long peakHeap = 0; // Upper bound, the pools do not peak at the same time
+			for (MemoryPoolMXBean pool : heapPools) {
+				peakHeap += pool.getPeakUsage().getUsed();
+			}
+			best = Math.min(best, seconds);
+			System.out.printf("Run %d: %.2f s, %.1f MB/s, %.1f logs/s, peak heap %d MB%n",
+					run, seconds, mb / seconds, numLogs / seconds, peakHeap / (1024 * 1024));
+		}
+		System.out.printf("Best: %.2f s, %.1f MB/s, %.1f logs/s%n", best, mb / best, numLogs / best);
+	}
+}